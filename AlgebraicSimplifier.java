@@ -0,0 +1,782 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+/* =========================================================
+   Simplificador ALGEBRAICO con pasos y LEYES (ASCII)
+   ========================================================= */
+class AlgebraicSimplifier {
+
+    // ===== AST: DAG con consing (cada subtermino existe una sola vez en su NodeFactory) =====
+    abstract static class Node {
+        final NodeFactory owner;
+        final int id;
+        Node nnf, negNnf;   // memo de toNNF(n) y de toNNF(~n)
+        private Node(NodeFactory owner){ this.owner = owner; this.id = owner.size++; }
+    }
+    static final class Var extends Node { final String name; private Var(NodeFactory f, String n){super(f); name=n;} }
+    static final class Not extends Node { final Node x; private Not(NodeFactory f, Node x){super(f); this.x=x;} }
+    static final class And extends Node { final Node l,r; private And(NodeFactory f, Node l, Node r){super(f); this.l=l; this.r=r;} }
+    static final class Or  extends Node { final Node l,r; private Or (NodeFactory f, Node l, Node r){super(f); this.l=l; this.r=r;} }
+    static final class Const extends Node { final boolean v; private Const(NodeFactory f, boolean v){super(f); this.v=v;} }
+
+    /**
+     * Tabla unica de nodos con hashing abierto: pedir dos veces el mismo
+     * (operador, hijos) devuelve el mismo objeto, asi que la igualdad
+     * estructural es la identidad y los operandos de = y ^ no se duplican.
+     * No es segura entre hilos: cada analisis usa su propia fabrica.
+     */
+    static final class NodeFactory {
+        private final Map<String,Var> vars = new HashMap<>();
+        private final Const one = new Const(this, true), zero = new Const(this, false);
+        private Node[] unique = new Node[256];
+        private int entries;
+        int size;
+
+        Var var(String name){ return vars.computeIfAbsent(name, n -> new Var(this, n)); }
+        Const constant(boolean v){ return v ? one : zero; }
+        Node not(Node x){ return intern(1, x, null); }
+        Node and(Node l, Node r){ return intern(2, l, r); }
+        Node or(Node l, Node r){ return intern(3, l, r); }
+
+        /** Nodos creados (variables, constantes y compuertas). */
+        int size(){ return size; }
+
+        private Node intern(int op, Node a, Node b){
+            int mask = unique.length - 1;
+            int i = hash(op, a, b) & mask;
+            for (Node n; (n = unique[i]) != null; i = (i + 1) & mask) {
+                if (matches(n, op, a, b)) return n;
+            }
+            Node n = op == 1 ? new Not(this, a) : op == 2 ? new And(this, a, b) : new Or(this, a, b);
+            unique[i] = n;
+            if (++entries * 2 > unique.length) rehash();
+            return n;
+        }
+        private static boolean matches(Node n, int op, Node a, Node b){
+            switch (op) {
+                case 1:  return n instanceof Not && ((Not)n).x == a;
+                case 2:  return n instanceof And && ((And)n).l == a && ((And)n).r == b;
+                default: return n instanceof Or  && ((Or)n).l == a && ((Or)n).r == b;
+            }
+        }
+        private static int hash(int op, Node a, Node b){
+            int h = op * 0x9E3779B1 + a.id * 0x85EBCA6B + (b == null ? 0 : b.id) * 0xC2B2AE35;
+            return h ^ (h >>> 16);
+        }
+        private void rehash(){
+            Node[] old = unique;
+            unique = new Node[old.length * 2];
+            int mask = unique.length - 1;
+            for (Node n : old) {
+                if (n == null) continue;
+                int i = n instanceof Not ? hash(1, ((Not)n).x, null)
+                      : n instanceof And ? hash(2, ((And)n).l, ((And)n).r) : hash(3, ((Or)n).l, ((Or)n).r);
+                for (i &= mask; unique[i] != null; i = (i + 1) & mask) { }
+                unique[i] = n;
+            }
+        }
+    }
+
+    /** ~n en la misma fabrica que n. */
+    static Node negate(Node n){ return n.owner.not(n); }
+
+    /**
+     * Nodos alcanzables desde las raices, cada uno una vez y despues de sus hijos.
+     * Usa una pila explicita: una cadena x1|x2|...|xn tiene profundidad n.
+     */
+    static List<Node> postOrder(Node... roots){
+        List<Node> out = new ArrayList<>();
+        Set<Node> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Node> stack = new ArrayDeque<>();
+        for (Node root : roots) {
+            if (!seen.add(root)) continue;
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                Node n = stack.peek(), next = null;
+                if (n instanceof Not) next = ((Not)n).x;
+                else if (n instanceof And) next = seen.contains(((And)n).l) ? ((And)n).r : ((And)n).l;
+                else if (n instanceof Or)  next = seen.contains(((Or)n).l)  ? ((Or)n).r  : ((Or)n).l;
+                if (next != null && seen.add(next)) stack.push(next);
+                else out.add(stack.pop());   // hijos ya listos: en un DAG un hijo visto no puede seguir en la pila
+            }
+        }
+        return out;
+    }
+
+    static class SimplifyResult {
+        final List<String> steps; final String result;
+        final boolean factored;   // forma factorizada (la DNF paso del limite), no suma de productos
+        SimplifyResult(List<String> s, String r){ this(s, r, false); }
+        SimplifyResult(List<String> s, String r, boolean f){ steps=s; result=r; factored=f; }
+    }
+
+    /** La distributiva pasaria del limite de terminos de la DNF. */
+    static final class DnfTooLargeException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        DnfTooLargeException(int budget){ super("La DNF supera el limite de " + budget + " terminos"); }
+    }
+
+    // (A|B)&(C|D)&... con k clausulas da 2^k productos: se corta antes de agotar la memoria
+    private static volatile int dnfBudget = 10_000;
+
+    /** Limite de terminos al distribuir; pasado el limite se usa la forma factorizada. */
+    static int dnfBudget(){ return dnfBudget; }
+
+    static void setDnfBudget(int terms){
+        if (terms < 1) throw new IllegalArgumentException("El limite de terminos debe ser positivo");
+        dnfBudget = terms;
+        RESULTS.clear();   // los resultados guardados dependen del limite
+    }
+
+    /** Modos de simplificacion: reglas algebraicas paso a paso o minimizacion exacta. */
+    enum Mode {
+        ALGEBRAICO("Algebraico (leyes)"),
+        QUINE_MCCLUSKEY("Quine-McCluskey (minimo)"),
+        ESPRESSO("Espresso (heuristico)");
+        final String label;
+        Mode(String label){ this.label = label; }
+        @Override public String toString(){ return label; }
+    }
+
+    static AlgebraicSimplifier.SimplifyResult simplifyPretty(String raw, Mode mode) {
+        return simplifyPretty(raw, mode, null);
+    }
+
+    /** Resultados por modo y flujo de tokens (con los nombres reales: aparecen en los pasos). */
+    static final ResultCache<String, SimplifyResult> RESULTS = new ResultCache<>("Simplificacion", 256);
+
+    /** Igual que simplifyPretty(raw, mode), avisando a {@code listener} de cada paso a medida que se genera. */
+    static AlgebraicSimplifier.SimplifyResult simplifyPretty(String raw, Mode mode, Consumer<String> listener) {
+        return simplifyPretty(raw, null, mode, listener);
+    }
+
+    /**
+     * Simplifica una funcion incompletamente especificada: ON-set {@code raw} e
+     * indiferencias {@code dc} (null = funcion completa). Con indiferencias el
+     * resultado puede tomar cualquier valor en el DC-set (tambien en las filas
+     * que esten en ambos); se comprueba que ON - DC <= resultado <= ON + DC.
+     * Las leyes algebraicas no aprovechan las indiferencias, asi que en ese
+     * modo se minimiza con Espresso.
+     */
+    static AlgebraicSimplifier.SimplifyResult simplifyPretty(String raw, DontCares dc, Mode mode, Consumer<String> listener) {
+        String key = mode.name() + ':' + ExpressionParser.tokenize(raw).key(null) + (dc == null ? "" : "|dc:" + dc.key());
+        SimplifyResult hit = RESULTS.get(key);
+        if (hit != null) {
+            // la misma simplificacion pudo pedirse con otra escritura: solo cambia el primer paso
+            List<String> steps = new ArrayList<>(hit.steps);
+            steps.set(0, "Expresion inicial: " + raw);
+            if (listener != null) steps.forEach(listener);
+            return new SimplifyResult(steps, hit.result, hit.factored);
+        }
+        long t0 = CalculatorMetrics.start();
+        SimplifyResult r;
+        switch (dc != null ? (mode == Mode.QUINE_MCCLUSKEY ? mode : Mode.ESPRESSO) : mode) {
+            case QUINE_MCCLUSKEY: r = simplifyExact(raw, dc, listener); break;
+            case ESPRESSO:        r = simplifyEspresso(raw, dc, mode == Mode.ALGEBRAICO, listener); break;
+            default:              r = simplifyPretty(raw, listener); break;
+        }
+        CalculatorMetrics.time("simplificacion", t0);
+        RESULTS.put(key, new SimplifyResult(new ArrayList<>(r.steps), r.result, r.factored));
+        return r;
+    }
+
+    /** Lista de pasos que avisa al oyente en cada add y atiende la interrupcion del hilo. */
+    static final class StepLog extends ArrayList<String> {
+        private static final long serialVersionUID = 1L;
+        private final Consumer<String> listener;
+        StepLog(Consumer<String> listener){ this.listener = listener; }
+        @Override public boolean add(String step){
+            if (Thread.currentThread().isInterrupted()) throw new CancellationException("Operacion cancelada");
+            if (listener != null) listener.accept(step);
+            return super.add(step);
+        }
+    }
+
+    // ====== Quine-McCluskey: minterminos -> primos -> cobertura minima ======
+    private static SimplifyResult simplifyExact(String raw, DontCares dc, Consumer<String> listener) {
+        List<String> steps = new StepLog(listener);
+        steps.add("Expresion inicial: " + raw);
+
+        BooleanExpression expr = new BooleanExpression(raw);
+        List<String> names = dc == null ? expr.getOrderedVariables() : dc.variables(expr);
+        int n = names.size();
+        if (n > QuineMcCluskey.MAX_VARS)
+            throw new RuntimeException("Quine-McCluskey admite hasta " + QuineMcCluskey.MAX_VARS + " variables (hay " + n + ")");
+
+        TruthColumn onCol = TruthTableEngine.truthTable(expr.bind(names)).col1;
+        int[] dcRows = new int[0];
+        if (dc != null) {
+            TruthColumn dcCol = dc.column(names);
+            long[] w = onCol.words.clone();
+            for (int i = 0; i < w.length; i++) w[i] &= ~dcCol.words[i];   // las indiferencias mandan
+            onCol = new TruthColumn(w, onCol.rows);
+            dcRows = dcCol.setRows();
+        }
+        int[] on = onCol.setRows();
+        steps.add("-> [Minterminos] " + QuineMcCluskey.mintermList(on, 64));
+        if (dc != null) steps.add("-> [Indiferencias] " + QuineMcCluskey.mintermList(dcRows, 64));
+
+        VarTable vars = new VarTable(names);
+        long t0 = CalculatorMetrics.start();
+        QuineMcCluskey.Result r = QuineMcCluskey.minimize(n, on, dcRows);
+        CalculatorMetrics.time("qm", t0);
+        CalculatorMetrics.rule("qm", on.length, r.cover.size());
+        steps.add("-> [Implicantes primos] " + termsToString(QuineMcCluskey.toTerms(r.primes, n), vars));
+        if (!r.essentials.isEmpty())
+            steps.add("-> [Esenciales] " + termsToString(QuineMcCluskey.toTerms(r.essentials, n), vars));
+        List<Term> cover = QuineMcCluskey.toTerms(r.cover, n);
+        steps.add("-> [Cobertura minima" + (r.exact ? "" : ", busqueda truncada") + "] " + termsToString(cover, vars));
+
+        String result = termsToString(cover, vars);
+        if (dc != null) checkDontCares(raw, dc, result, names, steps);
+        return new SimplifyResult(steps, result);
+    }
+
+    // ====== Espresso: DNF por distributiva -> EXPAND / IRREDUNDANT / REDUCE ======
+    private static SimplifyResult simplifyEspresso(String raw, DontCares dc, boolean fromAlgebraic, Consumer<String> listener) {
+        List<String> steps = new StepLog(listener);
+        steps.add("Expresion inicial: " + raw);
+        if (fromAlgebraic) steps.add("-> [Indiferencias] las leyes algebraicas no las aprovechan: se minimiza con Espresso");
+
+        long t0 = CalculatorMetrics.start();
+        Node ast = toNNF(parse(raw));
+        CalculatorMetrics.time("nnf", t0);
+        List<String> names = dc == null ? null : dc.variables(new BooleanExpression(raw));
+        VarTable vars = names == null ? VarTable.of(ast) : new VarTable(names);
+        t0 = CalculatorMetrics.start();
+        List<Term> dnf, dcDnf = null;
+        try {
+            dnf = expandWithLoggedDistribution(ast, new StepWriter(null, vars));
+            if (dc != null && dc.expression != null)
+                dcDnf = expandWithLoggedDistribution(toNNF(parse(dc.expression)), new StepWriter(null, vars));
+        } catch (DnfTooLargeException ex) {
+            CalculatorMetrics.time("distributiva", t0);
+            // el ON-set tal cual siempre cumple ON - DC <= resultado <= ON + DC
+            if (dc != null) steps.add("-> [Indiferencias] sin DNF no se aprovechan");
+            SimplifyResult r = NormalForms.fallback(ast, ex, steps);
+            if (dc != null) checkDontCares(raw, dc, r.result, names, steps);
+            return r;
+        }
+        CalculatorMetrics.time("distributiva", t0);
+        steps.add("-> [Distributiva] " + dnf.size() + " terminos");
+
+        // el bit i de un termino es la variable i del cubo
+        Espresso esp = new Espresso(vars.size());
+        List<long[]> cubes = new ArrayList<>();
+        for (Term t : dnf) cubes.add(esp.cube(t.pos, t.neg));
+        List<long[]> dcCubes = new ArrayList<>();
+        if (dc != null) {
+            if (dcDnf != null) {
+                for (Term t : dcDnf) dcCubes.add(esp.cube(t.pos, t.neg));
+            } else {
+                for (long[] lit : dc.literals(names)) dcCubes.add(esp.cube(lit[0], lit[1]));
+            }
+            steps.add("-> [Indiferencias] " + dcCubes.size() + " cubos");
+        }
+
+        t0 = CalculatorMetrics.start();
+        List<long[]> min = esp.minimize(cubes, dcCubes, line -> steps.add("-> [Espresso] " + line));
+        CalculatorMetrics.time("espresso", t0);
+        CalculatorMetrics.rule("espresso", cubes.size(), min.size());
+        List<Term> out = new ArrayList<>();
+        for (long[] c : min) out.add(new Term(esp.positiveMask(c), esp.negativeMask(c)));
+        steps.add("-> [Cobertura] " + termsToString(out, vars));
+
+        String result = termsToString(out, vars);
+        if (dc != null) checkDontCares(raw, dc, result, names, steps);
+        return new SimplifyResult(steps, result);
+    }
+
+    /**
+     * Comprueba ON - DC <= resultado <= ON + DC. Hasta Verifier.SAT_MIN_VARS variables
+     * (o con una lista de minterminos) se comparan columnas de bits; por encima,
+     * cada inclusion es una consulta SAT sin modelo.
+     */
+    private static void checkDontCares(String raw, DontCares dc, String result, List<String> names, List<String> steps) {
+        long t0 = CalculatorMetrics.start();
+        boolean lower, upper;
+        if (dc.expression == null || names.size() <= Verifier.SAT_MIN_VARS) {
+            long[] on  = TruthTableEngine.truthTable(new BooleanExpression(raw).bind(names)).col1.words;
+            long[] res = TruthTableEngine.truthTable(new BooleanExpression(result).bind(names)).col1.words;
+            long[] d   = dc.column(names).words;
+            long missing = 0, extra = 0;
+            for (int w = 0; w < on.length; w++) {
+                missing |= on[w] & ~d[w] & ~res[w];
+                extra   |= res[w] & ~on[w] & ~d[w];
+            }
+            lower = missing == 0;
+            upper = extra == 0;
+        } else {
+            NodeFactory f = new NodeFactory();
+            Node on = parse(raw, f), res = parse(result, f), d = parse(dc.expression, f);
+            lower = Tseitin.satisfy(f.and(f.and(on, negate(d)), negate(res))) == null;
+            upper = Tseitin.satisfy(f.and(res, f.and(negate(on), negate(d)))) == null;
+        }
+        CalculatorMetrics.time("verificacion", t0);
+        if (!lower || !upper)
+            throw new IllegalStateException("La cobertura no cumple ON - DC <= resultado <= ON + DC"
+                                            + (lower ? "" : " (faltan filas del ON-set)") + (upper ? "" : " (cubre filas del OFF-set)"));
+        steps.add("-> [Verificacion] ON - DC <= resultado <= ON + DC");
+    }
+
+    // ====== API principal ======
+    static AlgebraicSimplifier.SimplifyResult simplifyPretty(String raw) {
+        return simplifyPretty(raw, Mode.ALGEBRAICO, null);
+    }
+
+    private static AlgebraicSimplifier.SimplifyResult simplifyPretty(String raw, Consumer<String> listener) {
+        List<String> steps = new StepLog(listener);
+        steps.add("Expresion inicial: " + raw);
+
+        Node ast = parse(raw);
+
+        // Empujar negaciones (De Morgan) – solo si cambia
+        long t0 = CalculatorMetrics.start();
+        Node nnf = toNNF(ast);
+        CalculatorMetrics.time("nnf", t0);
+        if (nnf != ast) {   // con consing, misma estructura = mismo nodo
+            steps.add("-> [De Morgan / Doble negacion] " + toString(nnf, STEP_CHARS));
+        }
+        ast = nnf;
+
+        // Expansion (Distributiva) con registro
+        VarTable vars = VarTable.of(ast);
+        StepWriter w = new StepWriter(steps, vars);
+        t0 = CalculatorMetrics.start();
+        List<Term> dnf;
+        try {
+            dnf = expandWithLoggedDistribution(ast, w);
+        } catch (DnfTooLargeException ex) {
+            CalculatorMetrics.time("distributiva", t0);
+            return NormalForms.fallback(ast, ex, steps);
+        }
+        CalculatorMetrics.time("distributiva", t0);
+
+        // 1) Eliminar duplicados (los productos X·X' ya se descartaron al distribuir)
+        dnf = unique(dnf);
+        steps.add("-> [Idempotencia] " + termsToString(dnf, vars));
+
+        // Cada regla cuenta sus terminos de entrada y salida (sin cambios, salen iguales)
+        t0 = CalculatorMetrics.start();
+
+        // 2) Reglas adicionales hasta punto fijo:
+        boolean changed;
+        do {
+            changed = false;
+
+            // 2.1) Consenso / Complemento: X·Y + X·Y' = X
+            List<Term> combined = combineOppositeLiterals(dnf, steps, vars);
+            CalculatorMetrics.rule("consenso", dnf.size(), combined.size());
+            if (!sameSet(dnf, combined)) {
+                dnf = unique(combined);
+                steps.add("-> [Resultado parcial] " + termsToString(dnf, vars));
+                changed = true;
+                continue;
+            }
+
+            // 2.2) Absorcion variante: X + X'·Y = X + Y (si hay termino unitario X)
+            List<Term> dropOpp = dropOppositeUsingUnit(dnf, steps, vars);
+            CalculatorMetrics.rule("absorcion-var", dnf.size(), dropOpp.size());
+            if (!sameSet(dnf, dropOpp)) {
+                dnf = unique(dropOpp);
+                steps.add("-> [Resultado parcial] " + termsToString(dnf, vars));
+                changed = true;
+                continue;
+            }
+
+            // 2.3) Absorcion clasica: S + S·X = S (subconjunto)
+            List<Term> absorbed = applyAbsorption(dnf, steps, vars);
+            CalculatorMetrics.rule("absorcion", dnf.size(), absorbed.size());
+            if (!sameSet(dnf, absorbed)) {
+                dnf = unique(absorbed);
+                steps.add("-> [Resultado parcial] " + termsToString(dnf, vars));
+                changed = true;
+            }
+
+        } while (changed);
+        CalculatorMetrics.time("reglas", t0);
+
+        String res = dnf.isEmpty() ? "0" : termsToString(dnf, vars);
+        return new SimplifyResult(steps, res);
+    }
+
+    /* --------------------------
+       Impresion de distributiva
+       -------------------------- */
+    static class StepWriter {
+        final List<String> out;
+        final VarTable vars;
+        final int budget = dnfBudget;   // fijo durante toda la expansion
+        StepWriter(List<String> out, VarTable vars){ this.out = out; this.vars = vars; }
+        void dist(Node left, Node right, List<Term> before, List<Term> after) {
+            if (out == null) return;   // sin registro (modos que solo usan la DNF)
+            if (!termsToString(before, vars).equals(termsToString(after, vars))) {
+                out.add("-> [Distributiva] " + termsToString(after, vars));
+            }
+        }
+    }
+
+    /* ---------------------------------------
+       Parser / NNF
+       --------------------------------------- */
+
+    // Construye el AST con ~,&,| reescribiendo =, > y ^; los operandos repetidos son el mismo nodo
+    private static ExpressionParser.Builder<Node> builder(NodeFactory f) {
+        return new ExpressionParser.Builder<Node>() {
+            @Override public Node var(String name) { return f.var(name); }
+            @Override public Node constant(boolean value) { return f.constant(value); }
+            @Override public Node not(Node x) { return f.not(x); }
+            @Override public Node binary(int op, Node L, Node R) {
+                switch (op) {
+                    case ExpressionParser.AND:   return f.and(L, R);
+                    case ExpressionParser.OR:    return f.or(L, R);
+                    case ExpressionParser.IMPL:  return f.or(f.not(L), R);                                  // A>B -> ~A | B
+                    case ExpressionParser.XOR:   return f.or(f.and(L, f.not(R)), f.and(f.not(L), R));      // A^B -> (A&~B) | (~A&B)
+                    case ExpressionParser.EQUIV: return f.or(f.and(L, R), f.and(f.not(L), f.not(R)));      // A=B -> (A&B) | (~A&~B)
+                    default: throw new IllegalStateException();
+                }
+            }
+        };
+    }
+
+    static Node parse(String raw){
+        return parse(raw, new NodeFactory());
+    }
+
+    /** Analiza en una fabrica existente, para que varias expresiones compartan subterminos. */
+    static Node parse(String raw, NodeFactory f){
+        return ExpressionParser.parse(raw, builder(f));
+    }
+
+    /**
+     * Forma normal negada; memorizada en cada nodo, asi que cada subtermino se convierte una vez.
+     * Sin recursion: primero marca de arriba hacia abajo que polaridad de cada nodo hace falta
+     * (n.nnf o n.negNnf = toNNF(~n)) y despues las construye en post-orden.
+     */
+    static Node toNNF(Node n){
+        if (n.nnf != null) return n.nnf;
+        List<Node> order = postOrder(n);
+        Set<Node> pos = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Node> neg = Collections.newSetFromMap(new IdentityHashMap<>());
+        pos.add(n);
+        for (int i = order.size() - 1; i >= 0; i--) {   // padres antes que hijos
+            Node x = order.get(i);
+            boolean p = pos.contains(x) && x.nnf == null, q = neg.contains(x) && x.negNnf == null;
+            if (x instanceof Not) {
+                if (p) neg.add(((Not)x).x);   // ~X positivo = X negado
+                if (q) pos.add(((Not)x).x);   // ~~X
+            } else if (x instanceof And || x instanceof Or) {
+                Node l = x instanceof And ? ((And)x).l : ((Or)x).l, r = x instanceof And ? ((And)x).r : ((Or)x).r;
+                if (p) { pos.add(l); pos.add(r); }
+                if (q) { neg.add(l); neg.add(r); }
+            }
+        }
+        NodeFactory f = n.owner;
+        for (Node x : order) {
+            if (pos.contains(x) && x.nnf == null) {
+                if (x instanceof Not)      x.nnf = ((Not)x).x.negNnf;
+                else if (x instanceof And) x.nnf = f.and(((And)x).l.nnf, ((And)x).r.nnf);
+                else if (x instanceof Or)  x.nnf = f.or (((Or )x).l.nnf, ((Or )x).r.nnf);
+                else x.nnf = x;
+            }
+            if (neg.contains(x) && x.negNnf == null) {
+                if (x instanceof Const)    x.negNnf = f.constant(!((Const)x).v);
+                else if (x instanceof Var) x.negNnf = f.not(x);
+                else if (x instanceof Not) x.negNnf = ((Not)x).x.nnf;                                // ~~X
+                else if (x instanceof And) x.negNnf = f.or (((And)x).l.negNnf, ((And)x).r.negNnf);   // De Morgan
+                else                       x.negNnf = f.and(((Or )x).l.negNnf, ((Or )x).r.negNnf);
+            }
+        }
+        return n.nnf;
+    }
+
+    /* ---------------------------------------
+       DNF + registro de pasos Distributiva
+       --------------------------------------- */
+
+    /** Variables de una simplificacion: nombre <-> bit de los terminos (hasta 64). */
+    static final class VarTable {
+        static final int MAX = 64;
+        final List<String> names = new ArrayList<>();
+        private final Map<String,Integer> index = new HashMap<>();
+        VarTable(){ }
+        VarTable(Collection<String> names){ for (String n : names) index(n); }
+        int index(String name){
+            Integer i = index.get(name);
+            if (i != null) return i;
+            if (names.size() == MAX) throw new RuntimeException("La simplificacion admite hasta " + MAX + " variables");
+            index.put(name, names.size());
+            names.add(name);
+            return names.size() - 1;
+        }
+        long bit(String name){ return 1L << index(name); }
+        String name(int i){ return names.get(i); }
+        int size(){ return names.size(); }
+
+        /** Tabla con las variables del AST en orden natural de nombres. */
+        static VarTable of(Node n){
+            SortedSet<String> vars = new TreeSet<>(ExpressionParser.NAME_ORDER);
+            for (Node x : postOrder(n)) if (x instanceof Var) vars.add(((Var)x).name);
+            return new VarTable(vars);
+        }
+    }
+
+    /**
+     * Producto de literales: el bit i de pos/neg indica la variable i de la
+     * VarTable afirmada/negada. Subconjunto, igualdad y mezcla son O(1).
+     */
+    static final class Term {
+        static final Term ONE = new Term(0L, 0L); // termino vacio = 1
+        final long pos, neg;
+        Term(long pos, long neg){ this.pos = pos; this.neg = neg; }
+        boolean contradictory(){ return (pos & neg) != 0; }
+        long vars(){ return pos | neg; }
+        int size(){ return Long.bitCount(pos | neg); }
+        Term and(Term o){ return new Term(pos | o.pos, neg | o.neg); }
+        Term without(long bits){ return new Term(pos & ~bits, neg & ~bits); }
+        /** Todos los literales de este termino estan en o. */
+        boolean subsetOf(Term o){ return (pos & ~o.pos) == 0 && (neg & ~o.neg) == 0; }
+        @Override public boolean equals(Object o){
+            return o instanceof Term && ((Term)o).pos == pos && ((Term)o).neg == neg;
+        }
+        @Override public int hashCode(){ return Long.hashCode(pos * 31 + neg); }
+    }
+
+    private static List<Term> expandWithLoggedDistribution(Node n, StepWriter w){
+        List<Term> out = expand(n, w);
+        return unique(out);
+    }
+
+    /** DNF sin registro de pasos; lanza DnfTooLargeException al pasar el limite. */
+    static List<Term> dnf(Node nnf, VarTable vars){
+        return expandWithLoggedDistribution(nnf, new StepWriter(null, vars));
+    }
+
+    // Recorre el arbol (sin memo: cada aparicion registra su distributiva) con una pila
+    // explicita, en el mismo orden que la recursion: izquierda, derecha y despues el padre.
+    private static List<Term> expand(Node root, StepWriter w){
+        Deque<Node> todo = new ArrayDeque<>();
+        Set<Node> ready = Collections.newSetFromMap(new IdentityHashMap<>());   // hijos ya pedidos
+        Deque<List<Term>> values = new ArrayDeque<>();
+        todo.push(root);
+        while (!todo.isEmpty()) {
+            Node n = todo.peek();
+            if ((n instanceof And || n instanceof Or) && ready.add(n)) {
+                todo.push(n instanceof And ? ((And)n).r : ((Or)n).r);
+                todo.push(n instanceof And ? ((And)n).l : ((Or)n).l);
+                continue;
+            }
+            todo.pop();
+            if (n instanceof And || n instanceof Or) {
+                ready.remove(n);   // el mismo nodo puede volver a aparecer en otra rama
+                List<Term> R = values.pop(), L = values.pop();
+                values.push(n instanceof And ? product(n, L, R, w) : sum(n, L, R, w));
+            } else {
+                values.push(literal(n, w));
+            }
+        }
+        return values.pop();
+    }
+
+    private static List<Term> literal(Node n, StepWriter w){
+        if (n instanceof Const){
+            if (((Const)n).v) return singletonTrue();
+            else return new ArrayList<>();
+        }
+        if (n instanceof Var){
+            Term t = new Term(w.vars.bit(((Var)n).name), 0L);
+            return new ArrayList<>(Collections.singletonList(t));
+        }
+        if (n instanceof Not && ((Not)n).x instanceof Var){
+            Term t = new Term(0L, w.vars.bit(((Var)((Not)n).x).name));
+            return new ArrayList<>(Collections.singletonList(t));
+        }
+        throw new RuntimeException("No soportado en DNF: " + toString(n, STEP_CHARS));
+    }
+
+    private static List<Term> sum(Node n, List<Term> L, List<Term> R, StepWriter w){
+        if (L.size() + R.size() > w.budget) throw new DnfTooLargeException(w.budget);
+        List<Term> before = joinCopy(L,R);
+        List<Term> out = new ArrayList<>(L); out.addAll(R);
+        w.dist(((Or)n).l, ((Or)n).r, before, out);
+        CalculatorMetrics.dnfSize(out.size());
+        return out;
+    }
+
+    private static List<Term> product(Node n, List<Term> L, List<Term> R, StepWriter w){
+        List<Term> before = joinCopy(L,R);
+        List<Term> out = new ArrayList<>((int) Math.min((long) L.size() * R.size(), w.budget));
+        for (Term a : L) for (Term b : R){
+            Term t = a.and(b);
+            if (t.contradictory()) continue; // X·X' = 0 se descarta al multiplicar
+            if (out.size() == w.budget) throw new DnfTooLargeException(w.budget);
+            out.add(t);
+        }
+        w.dist(((And)n).l, ((And)n).r, before, out);
+        CalculatorMetrics.dnfSize(out.size());
+        return out;
+    }
+
+    private static List<Term> joinCopy(List<Term> A, List<Term> B){
+        List<Term> x = new ArrayList<>();
+        x.addAll(A); x.addAll(B);
+        return x;
+    }
+
+    private static List<Term> singletonTrue(){
+        return new ArrayList<>(Collections.singletonList(Term.ONE));
+    }
+
+    private static List<Term> unique(List<Term> terms){
+        List<Term> out = new ArrayList<>();
+        Set<Term> seen = new HashSet<>();
+        for (Term t : terms){
+            if (t.contradictory()) continue;
+            if (seen.add(t)) out.add(t);
+        }
+        return out;
+    }
+
+    /* ====== Reglas de reduccion adicionales ====== */
+
+    // Consenso: X·Y + X·Y' = X  (combina dos terminos que difieren en un solo literal)
+    private static List<Term> combineOppositeLiterals(List<Term> terms, List<String> steps, VarTable vars){
+        List<Term> out = new ArrayList<>(terms);
+        boolean changed = true;
+        while (changed){
+            changed = false;
+            outer:
+            for (int i=0;i<out.size();i++){
+                for (int j=i+1;j<out.size();j++){
+                    Term A = out.get(i), B = out.get(j);
+                    if (A.vars() != B.vars()) continue;
+                    long diff = A.pos ^ B.pos;
+                    if (Long.bitCount(diff) == 1){
+                        Term C = A.without(diff); // X·Y + X·Y' => X (quitamos Y)
+                        steps.add("-> [Consenso] " + termToString(A, vars) + " + " + termToString(B, vars) + " => " + termToString(C, vars));
+                        out.remove(j); out.remove(i);
+                        out.add(C);
+                        changed = true;
+                        break outer;
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    // Absorcion variante: X + X'·Y = X + Y  (si hay termino unitario X)
+    private static List<Term> dropOppositeUsingUnit(List<Term> terms, List<String> steps, VarTable vars){
+        List<Term> out = new ArrayList<>(terms);
+        boolean changed = true;
+        while (changed){
+            changed = false;
+            outer:
+            for (Term unit : new ArrayList<>(out)){
+                if (unit.size() != 1) continue;
+                long v = unit.vars();
+                for (int i=0;i<out.size();i++){
+                    Term t = out.get(i);
+                    if (t == unit) continue;
+                    long opposite = unit.pos != 0 ? t.neg : t.pos;
+                    if ((opposite & v) != 0){
+                        Term reduced = t.without(v);
+                        steps.add("-> [Absorcion] " + termToString(unit, vars) + " + " + termToString(t, vars) + " => " + termToString(unit, vars) + " + " + termToString(reduced, vars));
+                        out.remove(i);
+                        out.add(reduced);
+                        changed = true;
+                        break outer;
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    // Absorcion clasica: si A subseteq B, entonces A + B = A
+    private static List<Term> applyAbsorption(List<Term> terms, List<String> steps, VarTable vars){
+        List<Term> out = new ArrayList<>(terms);
+        boolean changed = true;
+        while (changed){
+            changed = false;
+            outer:
+            for (int i=0;i<out.size();i++){
+                for (int j=0;j<out.size();j++){
+                    if (i==j) continue;
+                    Term A = out.get(i), B = out.get(j);
+                    if (A.subsetOf(B)) {
+                        steps.add("-> [Absorcion] " + termToString(B, vars) + " absorbido por " + termToString(A, vars));
+                        out.remove(j);
+                        changed = true;
+                        break outer;
+                    }
+                }
+            }
+        }
+        out.sort(Comparator.comparingInt(Term::size));
+        return out;
+    }
+
+    private static boolean sameSet(List<Term> a, List<Term> b){
+        return new HashSet<>(a).equals(new HashSet<>(b));
+    }
+
+    /* ---------------------------------------
+       Impresion
+       --------------------------------------- */
+    static String termToString(Term t, VarTable vars){
+        if (t.vars() == 0) return "1";
+        List<String> lits = new ArrayList<>();
+        for (long b = t.vars(); b != 0; b &= b - 1){
+            int i = Long.numberOfTrailingZeros(b);
+            lits.add(((t.pos >>> i & 1L) != 0 ? "" : "~") + vars.name(i));
+        }
+        Collections.sort(lits);
+        return "(" + String.join(" & ", lits) + ")";
+    }
+
+    static String termsToString(List<Term> terms, VarTable vars){
+        if (terms.isEmpty()) return "0";
+        List<String> parts = new ArrayList<>();
+        for (Term t : terms) parts.add(termToString(t, vars));
+        Collections.sort(parts);
+        return String.join(" | ", parts);
+    }
+
+    // Largo maximo de una expresion en el registro de pasos: el DAG compartido
+    // impreso como arbol puede crecer exponencialmente (cadenas de XOR).
+    static final int STEP_CHARS = 2000;
+
+    /** Imprime n con pila explicita; pasado max caracteres corta con "...". */
+    static String toString(Node n, int max){
+        StringBuilder sb = new StringBuilder();
+        Deque<Object> stack = new ArrayDeque<>();   // Node por imprimir o String literal
+        stack.push(n);
+        while (!stack.isEmpty()) {
+            if (sb.length() > max) break;
+            Object o = stack.pop();
+            if (o instanceof String)     sb.append((String)o);
+            else if (o instanceof Const) sb.append(((Const)o).v ? "1" : "0");
+            else if (o instanceof Var)   sb.append(((Var)o).name);
+            else if (o instanceof Not)   { sb.append('~'); stack.push(((Not)o).x); }
+            else if (o instanceof And)   { sb.append('('); stack.push(")"); stack.push(((And)o).r); stack.push(" & "); stack.push(((And)o).l); }
+            else if (o instanceof Or)    { sb.append('('); stack.push(")"); stack.push(((Or )o).r); stack.push(" | "); stack.push(((Or )o).l); }
+            else sb.append('?');
+        }
+        return sb.length() > max ? sb.substring(0, max) + " ..." : sb.toString();
+    }
+}
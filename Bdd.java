@@ -0,0 +1,285 @@
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Diagramas de decision binaria reducidos y ordenados (ROBDD).
+ *
+ * Los nodos viven en arreglos paralelos (nivel, bajo, alto); 0 y 1 son las hojas.
+ * Una tabla unica con hashing abierto garantiza que cada funcion tenga un solo
+ * nodo, de modo que dos expresiones son equivalentes si y solo si sus raices
+ * son el mismo entero. Las operaciones pasan por ITE con un cache de resultados.
+ */
+final class Bdd {
+    static final int FALSE = 0, TRUE = 1;
+
+    /** Heuristicas de orden de variables. */
+    enum Ordering { ALFABETICO, APARICION, FRECUENCIA }
+
+    /** Se lanza cuando el diagrama supera el limite de nodos configurado. */
+    static final class LimitExceeded extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        LimitExceeded(int limit) { super("El BDD supera " + limit + " nodos"); }
+    }
+
+    private final List<String> order;               // nivel -> nombre de variable
+    private final Map<String, Integer> levelOf = new HashMap<>();
+    private final int nodeLimit;
+
+    private int[] level = new int[1024];
+    private int[] low   = new int[1024];
+    private int[] high  = new int[1024];
+    private int size;
+
+    private int[] unique = new int[2048];           // ids de nodo, 0 = vacio
+    private int[] cacheF, cacheG, cacheH, cacheR;   // cache ITE de mapeo directo
+    private long uniqueLookups, uniqueHits, cacheHits, cacheMisses;
+    private static final int FRAME = 6;
+    private int[] frames = new int[FRAME * 64];     // pila de ite
+
+    Bdd(List<String> order) { this(order, Integer.MAX_VALUE); }
+
+    Bdd(List<String> order, int nodeLimit) {
+        this.order = new ArrayList<>(order);
+        for (int i = 0; i < order.size(); i++) levelOf.put(order.get(i), i);
+        this.nodeLimit = nodeLimit;
+        int terminalLevel = order.size();
+        level[FALSE] = level[TRUE] = terminalLevel;
+        size = 2;
+        int cacheSize = 1 << 16;
+        cacheF = new int[cacheSize]; cacheG = new int[cacheSize];
+        cacheH = new int[cacheSize]; cacheR = new int[cacheSize];
+        Arrays.fill(cacheF, -1);
+    }
+
+    List<String> order() { return order; }
+
+    /* ---------------------------------------
+       Orden de variables
+       --------------------------------------- */
+    static List<String> order(Ordering how, AlgebraicSimplifier.Node... roots) {
+        Map<String, Integer> count = new LinkedHashMap<>();   // orden de primera aparicion
+        for (AlgebraicSimplifier.Node n : AlgebraicSimplifier.postOrder(roots))
+            if (n instanceof AlgebraicSimplifier.Var) count.merge(((AlgebraicSimplifier.Var) n).name, 1, Integer::sum);
+        List<String> vars = new ArrayList<>(count.keySet());
+        switch (how) {
+            case ALFABETICO: vars.sort(ExpressionParser.NAME_ORDER); break;
+            case FRECUENCIA: vars.sort((a, b) -> count.get(b) - count.get(a)); break;
+            default: break;
+        }
+        return vars;
+    }
+
+    /* ---------------------------------------
+       Construccion desde el AST
+       --------------------------------------- */
+    /** Construye el BDD del AST en postorden (sin recursion por nivel del arbol). */
+    int build(AlgebraicSimplifier.Node root) {
+        Map<AlgebraicSimplifier.Node, Integer> memo = new IdentityHashMap<>();
+        for (AlgebraicSimplifier.Node n : AlgebraicSimplifier.postOrder(root)) {
+            int r;
+            if (n instanceof AlgebraicSimplifier.Const) r = ((AlgebraicSimplifier.Const) n).v ? TRUE : FALSE;
+            else if (n instanceof AlgebraicSimplifier.Var) r = var(((AlgebraicSimplifier.Var) n).name);
+            else if (n instanceof AlgebraicSimplifier.Not) r = not(memo.get(((AlgebraicSimplifier.Not) n).x));
+            else if (n instanceof AlgebraicSimplifier.And)
+                r = and(memo.get(((AlgebraicSimplifier.And) n).l), memo.get(((AlgebraicSimplifier.And) n).r));
+            else if (n instanceof AlgebraicSimplifier.Or)
+                r = or(memo.get(((AlgebraicSimplifier.Or) n).l), memo.get(((AlgebraicSimplifier.Or) n).r));
+            else throw new RuntimeException("Nodo no soportado en BDD");
+            memo.put(n, r);
+        }
+        return memo.get(root);
+    }
+
+    int var(String name) {
+        Integer lv = levelOf.get(name);
+        if (lv == null) throw new IllegalArgumentException("Variable fuera del orden: " + name);
+        return mk(lv, FALSE, TRUE);
+    }
+
+    int not(int f) { return ite(f, FALSE, TRUE); }
+    int and(int f, int g) { return ite(f, g, FALSE); }
+    int or(int f, int g) { return ite(f, TRUE, g); }
+    int xor(int f, int g) { return ite(f, not(g), g); }
+
+    /**
+     * if-then-else: la operacion universal sobre BDDs. La recursion natural
+     * baja un nivel por variable; aqui los marcos van en una pila explicita
+     * (f, g, h, casilla del cache, nivel, resultado bajo) en el mismo orden:
+     * rama baja, rama alta y despues mk.
+     */
+    int ite(int f, int g, int h) {
+        int sp = 0;
+        while (true) {
+            int ret;
+            if (f == TRUE) ret = g;
+            else if (f == FALSE) ret = h;
+            else if (g == h) ret = g;
+            else if (g == TRUE && h == FALSE) ret = f;
+            else {
+                int slot = (int) ((f * 12582917L + g * 4256249L + h * 741457L) & (cacheF.length - 1));
+                if (cacheF[slot] == f && cacheG[slot] == g && cacheH[slot] == h) {
+                    cacheHits++;
+                    ret = cacheR[slot];
+                } else {
+                    cacheMisses++;
+                    int top = Math.min(level[f], Math.min(level[g], level[h]));
+                    if (sp + FRAME > frames.length) frames = Arrays.copyOf(frames, frames.length * 2);
+                    frames[sp] = f; frames[sp + 1] = g; frames[sp + 2] = h;
+                    frames[sp + 3] = slot; frames[sp + 4] = top; frames[sp + 5] = -1;
+                    sp += FRAME;
+                    f = cofactor(f, top, false); g = cofactor(g, top, false); h = cofactor(h, top, false);
+                    continue;
+                }
+            }
+            // ret sube por los marcos hasta uno al que le falte la rama alta
+            while (true) {
+                if (sp == 0) return ret;
+                int b = sp - FRAME, top = frames[b + 4];
+                if (frames[b + 5] < 0) {
+                    frames[b + 5] = ret;
+                    f = cofactor(frames[b], top, true); g = cofactor(frames[b + 1], top, true); h = cofactor(frames[b + 2], top, true);
+                    break;
+                }
+                int r = mk(top, frames[b + 5], ret), slot = frames[b + 3];
+                cacheF[slot] = frames[b]; cacheG[slot] = frames[b + 1]; cacheH[slot] = frames[b + 2]; cacheR[slot] = r;
+                sp = b;
+                ret = r;
+            }
+        }
+    }
+
+    private int cofactor(int f, int lv, boolean value) {
+        if (level[f] != lv) return f;
+        return value ? high[f] : low[f];
+    }
+
+    /** Nodo unico (lv, lo, hi); aplica la regla de reduccion lo == hi. */
+    private int mk(int lv, int lo, int hi) {
+        if (lo == hi) return lo;
+        uniqueLookups++;
+        int mask = unique.length - 1;
+        int i = hash(lv, lo, hi) & mask;
+        while (unique[i] != 0) {
+            int n = unique[i];
+            if (level[n] == lv && low[n] == lo && high[n] == hi) { uniqueHits++; return n; }
+            i = (i + 1) & mask;
+        }
+        if (size >= nodeLimit) throw new LimitExceeded(nodeLimit);
+        // cada 4096 nodos se atiende una cancelacion (interrupcion del hilo)
+        if ((size & 0xFFF) == 0 && Thread.currentThread().isInterrupted()) throw new CancellationException("Operacion cancelada");
+        if (size == level.length) {
+            level = Arrays.copyOf(level, size * 2);
+            low   = Arrays.copyOf(low,   size * 2);
+            high  = Arrays.copyOf(high,  size * 2);
+        }
+        int n = size++;
+        level[n] = lv; low[n] = lo; high[n] = hi;
+        unique[i] = n;
+        if (size * 2 > unique.length) rehash();
+        return n;
+    }
+
+    private static int hash(int lv, int lo, int hi) {
+        int h = lv * 0x9E3779B1 + lo * 0x85EBCA6B + hi * 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+
+    private void rehash() {
+        unique = new int[unique.length * 2];
+        int mask = unique.length - 1;
+        for (int n = 2; n < size; n++) {
+            int i = hash(level[n], low[n], high[n]) & mask;
+            while (unique[i] != 0) i = (i + 1) & mask;
+            unique[i] = n;
+        }
+        if (cacheF.length < unique.length && cacheF.length < (1 << 22)) {
+            int cacheSize = cacheF.length * 2;
+            cacheF = new int[cacheSize]; cacheG = new int[cacheSize];
+            cacheH = new int[cacheSize]; cacheR = new int[cacheSize];
+            Arrays.fill(cacheF, -1);
+        }
+    }
+
+    /* ---------------------------------------
+       Consultas
+       --------------------------------------- */
+
+    /** Numero de asignaciones (sobre todas las variables del orden) que hacen verdadera a f. */
+    BigInteger satCount(int f) {
+        if (f <= TRUE) return f == TRUE ? BigInteger.ONE.shiftLeft(level[TRUE]) : BigInteger.ZERO;
+        boolean[] reach = reachable(f);
+        // asignaciones de las variables desde el nivel de cada nodo hasta el final
+        BigInteger[] memo = new BigInteger[f + 1];
+        memo[FALSE] = BigInteger.ZERO;
+        memo[TRUE] = BigInteger.ONE;
+        for (int n = TRUE + 1; n <= f; n++) {
+            if (!reach[n]) continue;
+            BigInteger lo = memo[low[n]].shiftLeft(level[low[n]] - level[n] - 1);
+            BigInteger hi = memo[high[n]].shiftLeft(level[high[n]] - level[n] - 1);
+            memo[n] = lo.add(hi);
+        }
+        return memo[f].shiftLeft(level[f]);
+    }
+
+    /** Una asignacion que satisface f (las variables libres valen falso), o null si f = 0. */
+    Map<String, Boolean> anySat(int f) {
+        if (f == FALSE) return null;
+        Map<String, Boolean> asg = new TreeMap<>();
+        for (String v : order) asg.put(v, false);
+        while (f != TRUE) {
+            boolean goHigh = low[f] == FALSE;
+            asg.put(order.get(level[f]), goHigh);
+            f = goHigh ? high[f] : low[f];
+        }
+        return asg;
+    }
+
+    /** Nodos alcanzables desde f (incluidas las hojas). */
+    int nodeCount(int f) {
+        int count = 0;
+        for (boolean r : reachable(f)) if (r) count++;
+        return count;
+    }
+
+    // Los hijos siempre tienen indice menor que el padre (mk los crea antes),
+    // asi que basta un barrido descendente, sin recursion ni pila.
+    private boolean[] reachable(int f) {
+        boolean[] reach = new boolean[f + 1];
+        reach[f] = true;
+        for (int n = f; n > TRUE; n--) {
+            if (!reach[n]) continue;
+            reach[low[n]] = true;
+            reach[high[n]] = true;
+        }
+        return reach;
+    }
+
+    /* ---------------------------------------
+       Estadisticas
+       --------------------------------------- */
+    int totalNodes() { return size; }
+    int uniqueTableCapacity() { return unique.length; }
+    int cacheCapacity() { return cacheF.length; }
+    long cacheHits() { return cacheHits; }
+    long cacheMisses() { return cacheMisses; }
+    long uniqueLookups() { return uniqueLookups; }
+    long uniqueHits() { return uniqueHits; }
+
+    double cacheHitRate() {
+        long total = cacheHits + cacheMisses;
+        return total == 0 ? 0 : (double) cacheHits / total;
+    }
+
+    String stats() {
+        return String.format("nodos=%d, tabla unica=%d, cache ITE=%d (aciertos %.1f%%), reutilizacion unica=%d/%d",
+                size, unique.length, cacheF.length, 100 * cacheHitRate(), uniqueHits, uniqueLookups);
+    }
+}
@@ -0,0 +1,354 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Bancos de prueba reproducibles.
+ *
+ *   java Benchmarks [filtro...] [--rapido]
+ *
+ * El arbol no tiene sistema de build para JMH, asi que el arnes es propio: cada
+ * caso se calienta y luego se mide en rondas de tiempo fijo, informando mediana
+ * y minimo por operacion. Las formulas (CNF, DNF y cadenas XOR aleatorias) salen
+ * de semillas fijas, de modo que dos corridas miden exactamente lo mismo. Los
+ * casos "legado" usan una copia del evaluador recursivo sobre cadenas original
+ * como referencia para comparar motores nuevos.
+ */
+final class Benchmarks {
+    static final long SEED = 0x5EEDL;
+    /** Letras utilizables como variables (T y F son constantes). */
+    static final String LETTERS = "ABCDEGHIJKLMNOPQRSUVWXYZ";
+    static final int[] SWEEP_VARS = { 8, 12, 16, 20, 24 };
+    /** Mas alla de esto el evaluador legado tarda minutos por tabla. */
+    static final int LEGACY_MAX_VARS = 12;
+
+    private static int warmupRounds = 5, measureRounds = 10;
+    private static long roundNanos = 200_000_000L;
+    private static List<String> filters = new ArrayList<>();
+
+    /** Destino de los resultados para que el JIT no elimine el trabajo medido. */
+    static volatile long sink;
+
+    interface Op { long run(); }
+
+    public static void main(String[] args) {
+        for (String a : args) {
+            if (a.equals("--rapido")) { warmupRounds = 2; measureRounds = 3; roundNanos = 100_000_000L; }
+            else filters.add(a);
+        }
+        System.out.printf(Locale.ROOT, "%-44s %14s %14s %10s%n", "caso", "mediana", "minimo", "unidad");
+
+        // Construccion: preprocesado + compilacion
+        for (int n : new int[]{ 8, 16, 24 }) {
+            for (String kind : new String[]{ "cnf", "dnf", "xor" }) {
+                String f = formula(kind, n);
+                bench("construir/" + kind + "/" + n, 1, "ns/expr", uncached(() -> new BooleanExpression(f).getProgram().length()));
+                bench("construir/" + kind + "/" + n + "/cache", 1, "ns/expr", () -> new BooleanExpression(f).getProgram().length());
+                bench("construir/" + kind + "/" + n + "/legado", 1, "ns/expr", () -> new LegacyExpression(f).getVariables().size());
+            }
+        }
+
+        // Evaluacion fila a fila
+        for (int n : new int[]{ 8, 16, 24 }) {
+            for (String kind : new String[]{ "cnf", "dnf", "xor" }) {
+                String f = formula(kind, n);
+                BooleanExpression e = new BooleanExpression(f);
+                BooleanExpression.Program p = e.getProgram();
+                boolean[] stack = p.newStack();
+                long mask = (1L << p.numVars()) - 1;
+                int rows = 1024;
+                bench("evaluar/" + kind + "/" + n, rows, "ns/fila", () -> {
+                    long t = 0;
+                    for (long r = 0; r < rows; r++) if (p.evaluateRow((r * 0x9E3779B97F4A7C15L) & mask, stack)) t++;
+                    return t;
+                });
+                List<String> vars = e.getOrderedVariables();
+                LegacyExpression legacy = new LegacyExpression(f);
+                bench("evaluar/" + kind + "/" + n + "/legado", 64, "ns/fila", () -> {
+                    long t = 0;
+                    for (long r = 0; r < 64; r++) if (legacy.evaluate(assignment(vars, (r * 0x9E3779B97F4A7C15L) & mask))) t++;
+                    return t;
+                });
+            }
+        }
+
+        // Barrido completo de la tabla y barrido de equivalencia
+        for (int n : SWEEP_VARS) {
+            for (String kind : new String[]{ "cnf", "dnf", "xor" }) {
+                BooleanExpression e1 = new BooleanExpression(formula(kind, n));
+                BooleanExpression e2 = new BooleanExpression(formula(kind, n, SEED + 1));
+                List<String> vars = BooleanExpression.union(e1, e2);
+                BooleanExpression.Program p1 = e1.bind(vars), p2 = e2.bind(vars);
+                long rows = 1L << vars.size();
+                bench("tabla/" + kind + "/" + n, rows, "ns/fila", uncached(() -> TruthTableEngine.truthTable(p1).trueCount));
+                bench("equivalencia/" + kind + "/" + n, rows, "ns/fila", uncached(() -> TruthTableEngine.equivalence(p1, p2).eqRows));
+                if (n <= LEGACY_MAX_VARS) {
+                    LegacyExpression l1 = new LegacyExpression(formula(kind, n));
+                    LegacyExpression l2 = new LegacyExpression(formula(kind, n, SEED + 1));
+                    bench("tabla/" + kind + "/" + n + "/legado", rows, "ns/fila", () -> {
+                        long t = 0;
+                        for (long r = 0; r < rows; r++) if (l1.evaluate(assignment(vars, r))) t++;
+                        return t;
+                    });
+                    bench("equivalencia/" + kind + "/" + n + "/legado", rows, "ns/fila", () -> {
+                        long eq = 0;
+                        for (long r = 0; r < rows; r++) {
+                            Map<Character, Boolean> asg = assignment(vars, r);
+                            if (l1.evaluate(asg) == l2.evaluate(asg)) eq++;
+                        }
+                        return eq;
+                    });
+                }
+            }
+        }
+
+        // Formulas anchas (muchos terminos pequenos): recorrido Gray incremental frente a la evaluacion completa
+        for (int n : new int[]{ 16, 20 }) {
+            BooleanExpression.Program p = new BooleanExpression(formula("ancha", n)).getProgram();
+            long rows = 1L << n;
+            bench("tabla/ancha/" + n, rows, "ns/fila", uncached(() -> TruthTableEngine.truthTable(p).trueCount));
+            bench("tabla/ancha/" + n + "/plano", rows, "ns/fila", () -> TruthColumn.compute(p).cardinality());
+        }
+
+        // Simplificacion
+        for (int n : new int[]{ 6, 8 }) {
+            String dnf = formula("dnf", n);
+            bench("simplificar/algebraico/dnf/" + n, 1, "us/expr",
+                    uncached(() -> AlgebraicSimplifier.simplifyPretty(dnf, AlgebraicSimplifier.Mode.ALGEBRAICO).result.length()));
+            bench("simplificar/algebraico/dnf/" + n + "/cache", 1, "us/expr",
+                    () -> AlgebraicSimplifier.simplifyPretty(dnf, AlgebraicSimplifier.Mode.ALGEBRAICO).result.length());
+        }
+        // el metodo exacto crece muy rapido con n: 16 variables en DNF densa tarda segundos por expresion
+        for (int n : new int[]{ 8, 12 }) {
+            for (String kind : new String[]{ "cnf", "dnf", "xor" }) {
+                String f = formula(kind, n);
+                bench("simplificar/qm/" + kind + "/" + n, 1, "us/expr",
+                        uncached(() -> AlgebraicSimplifier.simplifyPretty(f, AlgebraicSimplifier.Mode.QUINE_MCCLUSKEY).result.length()));
+            }
+        }
+        for (int n : new int[]{ 8, 12, 16 }) {
+            String f = formula("dnf", n);
+            bench("simplificar/espresso/dnf/" + n, 1, "us/expr",
+                    uncached(() -> AlgebraicSimplifier.simplifyPretty(f, AlgebraicSimplifier.Mode.ESPRESSO).result.length()));
+        }
+    }
+
+    /* ---------------------------------------
+       Arnes
+       --------------------------------------- */
+    static void bench(String name, long opsPerCall, String unit, Op op) {
+        if (!filters.isEmpty() && filters.stream().noneMatch(name::contains)) return;
+        double scale = unit.startsWith("us") ? 1e3 : 1.0;
+        for (int i = 0; i < warmupRounds; i++) round(op, opsPerCall);
+        double[] perOp = new double[measureRounds];
+        for (int i = 0; i < measureRounds; i++) perOp[i] = round(op, opsPerCall) / scale;
+        Arrays.sort(perOp);
+        System.out.printf(Locale.ROOT, "%-44s %14.2f %14.2f %10s%n", name, perOp[perOp.length / 2], perOp[0], unit);
+    }
+
+    /** Operacion que vacia los caches de resultados antes de cada llamada, para medir el calculo. */
+    static Op uncached(Op op) {
+        return () -> {
+            ResultCache.clearAll();
+            return op.run();
+        };
+    }
+
+    /** Ejecuta la operacion durante una ronda y devuelve nanosegundos por operacion. */
+    private static double round(Op op, long opsPerCall) {
+        long calls = 0, acc = 0;
+        long start = System.nanoTime(), elapsed;
+        do {
+            acc += op.run();
+            calls++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < roundNanos);
+        sink += acc;
+        return (double) elapsed / (calls * opsPerCall);
+    }
+
+    /* ---------------------------------------
+       Generadores (semillas fijas)
+       --------------------------------------- */
+    static String formula(String kind, int n) { return formula(kind, n, SEED); }
+
+    static String formula(String kind, int n, long seed) {
+        Random rnd = new Random(seed * 31 + n * 7 + kind.hashCode());
+        switch (kind) {
+            case "cnf": return cnf(rnd, n, Math.max(2, (int) (n * 4.26)), 3);
+            case "dnf": return dnf(rnd, n, 2 * n, 3);
+            case "xor": return xorChain(rnd, n);
+            case "ancha": return dnf(rnd, n, 16 * n, 3);
+            default: throw new IllegalArgumentException(kind);
+        }
+    }
+
+    /** 3-CNF aleatoria cerca del umbral de satisfacibilidad (4.26 clausulas por variable). */
+    static String cnf(Random rnd, int n, int clauses, int width) {
+        return join(rnd, n, clauses, width, "|", "&");
+    }
+
+    static String dnf(Random rnd, int n, int terms, int width) {
+        return join(rnd, n, terms, width, "&", "|");
+    }
+
+    /** Cadena XOR de todas las variables con negaciones al azar (peor caso para SOP). */
+    static String xorChain(Random rnd, int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int v = 0; v < n; v++) {
+            if (v > 0) sb.append('^');
+            if (rnd.nextBoolean()) sb.append('~');
+            sb.append(LETTERS.charAt(v));
+        }
+        return sb.toString();
+    }
+
+    private static String join(Random rnd, int n, int groups, int width, String inner, String outer) {
+        StringBuilder sb = new StringBuilder();
+        for (int g = 0; g < groups; g++) {
+            if (g > 0) sb.append(outer);
+            sb.append('(');
+            for (int k = 0; k < width; k++) {
+                if (k > 0) sb.append(inner);
+                if (rnd.nextBoolean()) sb.append('~');
+                // las primeras n clausulas recorren todas las variables, para que aparezcan las n
+                sb.append(LETTERS.charAt(g < n && k == 0 ? g : rnd.nextInt(n)));
+            }
+            sb.append(')');
+        }
+        return sb.toString();
+    }
+
+    // el evaluador original solo conoce variables de una letra
+    private static Map<Character, Boolean> assignment(List<String> vars, long row) {
+        int n = vars.size();
+        Map<Character, Boolean> asg = new HashMap<>();
+        for (int j = 0; j < n; j++) asg.put(vars.get(j).charAt(0), ((row >> (n - 1 - j)) & 1) == 1);
+        return asg;
+    }
+
+    /* ---------------------------------------
+       Evaluador original (recursivo sobre cadenas), copiado tal cual
+       (sin la interfaz publica) como linea base de las comparaciones
+       --------------------------------------- */
+    static final class LegacyExpression {
+        private final String expr;
+        private final Set<Character> variables;
+
+        LegacyExpression(String expression) {
+            this.expr = preprocessExpression(expression);
+            this.variables = extractVariables(this.expr);
+            if (this.expr.isEmpty()) throw new RuntimeException("Expresion vacia");
+            checkParenthesesBalance(this.expr);
+        }
+
+        private static String preprocessExpression(String expr) {
+            if (expr == null) return "";
+            String e = expr.replaceAll("\\s+", "");
+            e = e.replace("<->", "=").replace("<=>", "=").replace("BICONDITIONAL", "=").replace("biconditional", "=").replace("IFF", "=").replace("iff", "=");
+            e = e.replace("->", ">").replace("IMPLIES", ">").replace("implies", ">");
+            e = e.replace("AND", "&").replace("and", "&");
+            e = e.replace("OR", "|").replace("or", "|");
+            e = e.replace("XOR", "^").replace("xor", "^");
+            e = e.replace("NOT", "~").replace("not", "~").replace("!", "~");
+            e = e.replace("true", "1").replace("TRUE", "1").replace("T", "1");
+            e = e.replace("false", "0").replace("FALSE", "0").replace("F", "0");
+            return e;
+        }
+
+        private static void checkParenthesesBalance(String e){
+            int bal = 0;
+            for(char ch : e.toCharArray()){
+                if(ch=='(') bal++;
+                else if(ch==')') bal--;
+                if(bal<0) throw new RuntimeException("Parentesis desbalanceados");
+            }
+            if(bal!=0) throw new RuntimeException("Parentesis desbalanceados");
+        }
+
+        private static Set<Character> extractVariables(String e){
+            Set<Character> vars = new HashSet<>();
+            for(char c : e.toCharArray()) if(Character.isLetter(c)) vars.add(c);
+            return vars;
+        }
+
+        Set<Character> getVariables() { return new HashSet<>(variables); }
+
+        boolean evaluate(Map<Character, Boolean> assignment) {
+            return eval(stripOuter(expr), assignment);
+        }
+
+        private static String stripOuter(String s){
+            String e = s;
+            while(e.length()>=2 && e.charAt(0)=='(' && e.charAt(e.length()-1)==')' && matchingOuterParens(e)){
+                e = e.substring(1, e.length()-1);
+            }
+            return e;
+        }
+        private static boolean matchingOuterParens(String e){
+            int bal=0; for(int i=0;i<e.length();i++){ char c=e.charAt(i); if(c=='(') bal++; else if(c==')'){ bal--; if(bal==0 && i!=e.length()-1) return false; } }
+            return true;
+        }
+
+        private static boolean eval(String expr, Map<Character, Boolean> asg){
+            String e = stripOuter(expr);
+            if(e.isEmpty()) throw new RuntimeException("Sintaxis invalida (vacio)");
+
+            int pos;
+            if((pos = findMainOp(e, '=')) >= 0) return applyEquiv(e, pos, asg);
+            if((pos = findMainOp(e, '>')) >= 0)  return applyImpl (e, pos, asg);
+            if((pos = findMainOp(e, '|')) >= 0)  return applyBin  (e, pos, asg, '|');
+            if((pos = findMainOp(e, '^')) >= 0)  return applyBin  (e, pos, asg, '^');
+            if((pos = findMainOp(e, '&')) >= 0)  return applyBin  (e, pos, asg, '&');
+
+            if(e.charAt(0) == '~') return !eval(e.substring(1), asg);
+
+            if(e.equals("1")) return true;
+            if(e.equals("0")) return false;
+            if(e.length()==1 && Character.isLetter(e.charAt(0))) return asg.getOrDefault(e.charAt(0), false);
+
+            throw new RuntimeException("Sintaxis invalida cerca de: " + e);
+        }
+
+        private static int findMainOp(String e, char target){
+            int bal=0;
+            for(int i=e.length()-1;i>=0;i--){
+                char c = e.charAt(i);
+                if(c==')') bal++;
+                else if(c=='(') bal--;
+                else if(bal==0 && c==target) { if(i>0) return i; }
+            }
+            return -1;
+        }
+
+        private static boolean applyBin(String e, int pos, Map<Character, Boolean> asg, char op){
+            String L = e.substring(0, pos);
+            String R = e.substring(pos+1);
+            boolean lv = eval(L, asg);
+            boolean rv = eval(R, asg);
+            switch(op){
+                case '&': return (lv & rv);
+                case '|': return (lv | rv);
+                case '^': return (lv ^ rv);
+                default: throw new IllegalStateException();
+            }
+        }
+
+        private static boolean applyImpl(String e, int pos, Map<Character, Boolean> asg){
+            String L = e.substring(0, pos);
+            String R = e.substring(pos+1);
+            return (!eval(L, asg)) | eval(R, asg);
+        }
+        private static boolean applyEquiv(String e, int pos, Map<Character, Boolean> asg){
+            String L = e.substring(0, pos);
+            String R = e.substring(pos+1);
+            return eval(L, asg) == eval(R, asg);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Modo por lotes sin interfaz grafica (no carga AWT ni Swing).
+ *
+ *   java BooleanBatch [--modo clasificar|equivalencia|simplificar|multisalida|formas]
+ *                     [--metodo algebraico|qm|espresso] [--formato tsv|json]
+ *                     [--max-terminos N] [--hilos N] [archivo]
+ *
+ * Lee una expresion por linea (o dos separadas por tabulador en modo
+ * equivalencia; en modo simplificar, la segunda es el conjunto de
+ * indiferencias; en modo multisalida, las salidas van separadas por ';')
+ * del archivo o de la entrada estandar; las lineas vacias y las
+ * que empiezan con '#' se ignoran. Las lineas se procesan en un pool de hilos
+ * y los resultados se escriben en el orden de entrada, como TSV (con
+ * cabecera) o como un objeto JSON por linea. --max-terminos fija el limite
+ * de la DNF al distribuir (mas alla, se simplifica a la forma factorizada).
+ */
+final class BooleanBatch {
+    enum Task { CLASIFICAR, EQUIVALENCIA, SIMPLIFICAR, MULTISALIDA, FORMAS }
+    enum Format { TSV, JSON }
+
+    /** Lineas en vuelo por hilo: acota la memoria sin dejar hilos ociosos. */
+    private static final int WINDOW_PER_THREAD = 64;
+
+    private static final String[] CLASSIFY_COLUMNS  = { "linea", "expresion", "variables", "tipo", "verdaderos", "motor", "tiempo_us", "error" };
+    private static final String[] EQUIV_COLUMNS     = { "linea", "expresion1", "expresion2", "equivalentes", "contraejemplo", "motor", "tiempo_us", "error" };
+    private static final String[] SIMPLIFY_COLUMNS  = { "linea", "expresion", "indiferencias", "metodo", "resultado", "forma", "terminos", "tiempo_us", "error" };
+    private static final String[] MULTI_COLUMNS     = { "linea", "salidas", "resultado", "productos", "compartidos", "por_separado", "tiempo_us", "error" };
+    private static final String[] FORMS_COLUMNS     = { "linea", "expresion", "clausulas", "auxiliares", "factorizada", "literales", "dnf", "terminos", "tiempo_us", "error" };
+
+    /** Columnas que en JSON se escriben como numero. */
+    private static final Set<String> NUMERIC = new HashSet<>(Arrays.asList("linea", "verdaderos", "terminos", "productos",
+                                                                           "compartidos", "por_separado", "clausulas",
+                                                                           "auxiliares", "literales", "tiempo_us"));
+
+    private final Task task;
+    private final AlgebraicSimplifier.Mode mode;
+    private final Format format;
+    private final String[] columns;
+
+    BooleanBatch(Task task, AlgebraicSimplifier.Mode mode, Format format) {
+        this.task = task;
+        this.mode = mode;
+        this.format = format;
+        this.columns = task == Task.CLASIFICAR ? CLASSIFY_COLUMNS
+                     : task == Task.EQUIVALENCIA ? EQUIV_COLUMNS
+                     : task == Task.MULTISALIDA ? MULTI_COLUMNS
+                     : task == Task.FORMAS ? FORMS_COLUMNS : SIMPLIFY_COLUMNS;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Task task = Task.CLASIFICAR;
+        AlgebraicSimplifier.Mode mode = AlgebraicSimplifier.Mode.ALGEBRAICO;
+        Format format = Format.TSV;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String file = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--modo":    task = Task.valueOf(value(args, ++i).toUpperCase(Locale.ROOT)); break;
+                    case "--formato": format = Format.valueOf(value(args, ++i).toUpperCase(Locale.ROOT)); break;
+                    case "--metodo":  mode = parseMode(value(args, ++i)); break;
+                    case "--hilos":   threads = Math.max(1, Integer.parseInt(value(args, ++i))); break;
+                    case "--max-terminos": AlgebraicSimplifier.setDnfBudget(Integer.parseInt(value(args, ++i))); break;
+                    case "-h": case "--ayuda": usage(); return;
+                    default:
+                        if (args[i].startsWith("--") || file != null) throw new IllegalArgumentException("Argumento desconocido: " + args[i]);
+                        file = args[i];
+                }
+            }
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            usage();
+            System.exit(2);
+        }
+
+        BufferedReader in = file == null
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8);
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16));
+        long t0 = System.nanoTime();
+        long n;
+        try (BufferedReader r = in) {
+            n = new BooleanBatch(task, mode, format).run(r, out, threads);
+        }
+        out.flush();
+        System.err.printf(Locale.ROOT, "%d lineas en %.1f ms (%d hilos)%n", n, (System.nanoTime() - t0) / 1e6, threads);
+        System.err.print(CalculatorMetrics.get().getSummary());
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("Falta el valor de " + args[i - 1]);
+        return args[i];
+    }
+
+    private static AlgebraicSimplifier.Mode parseMode(String s) {
+        switch (s.toLowerCase(Locale.ROOT)) {
+            case "algebraico": return AlgebraicSimplifier.Mode.ALGEBRAICO;
+            case "qm": case "quine-mccluskey": return AlgebraicSimplifier.Mode.QUINE_MCCLUSKEY;
+            case "espresso": return AlgebraicSimplifier.Mode.ESPRESSO;
+            default: throw new IllegalArgumentException("Metodo desconocido: " + s);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Uso: java BooleanBatch [--modo clasificar|equivalencia|simplificar|multisalida|formas] "
+                + "[--metodo algebraico|qm|espresso] [--formato tsv|json] [--max-terminos N] [--hilos N] [archivo]");
+    }
+
+    /**
+     * Procesa todas las lineas de {@code in}. Se mantiene una ventana de tareas
+     * en vuelo; la mas antigua se escribe en cuanto termina, asi la salida sale
+     * en orden y en flujo continuo. Devuelve las lineas procesadas.
+     */
+    long run(BufferedReader in, PrintWriter out, int threads) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "lote");
+            t.setDaemon(true);
+            return t;
+        });
+        Deque<Pending> window = new ArrayDeque<>();
+        int maxWindow = threads * WINDOW_PER_THREAD;
+        long count = 0;
+        if (format == Format.TSV) out.println(String.join("\t", columns));
+        try {
+            String line;
+            long lineNo = 0;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                String text = line.trim();
+                if (text.isEmpty() || text.startsWith("#")) continue;
+                final long no = lineNo;
+                window.addLast(new Pending(no, text, pool.submit(() -> process(no, text))));
+                count++;
+                if (window.size() >= maxWindow) write(out, window.removeFirst());
+            }
+            while (!window.isEmpty()) write(out, window.removeFirst());
+        } finally {
+            pool.shutdownNow();
+        }
+        return count;
+    }
+
+    /** Linea enviada al pool, con lo necesario para escribir su fila aunque la tarea falle. */
+    private static final class Pending {
+        final long lineNo;
+        final String text;
+        final Future<String[]> result;
+        Pending(long lineNo, String text, Future<String[]> result) { this.lineNo = lineNo; this.text = text; this.result = result; }
+    }
+
+    private void write(PrintWriter out, Pending p) {
+        String[] values;
+        try {
+            values = p.result.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        } catch (ExecutionException ex) {
+            // process() ya atrapa todo; por si acaso, la linea sale con su error y el lote sigue
+            values = errorRow(p.lineNo, p.text, ex.getCause());
+        }
+        out.println(format == Format.TSV ? tsv(values) : json(values));
+    }
+
+    /* ---------------------------------------
+       Trabajo por linea (en los hilos del pool)
+       --------------------------------------- */
+    String[] process(long lineNo, String text) {
+        String[] v = new String[columns.length];
+        v[0] = Long.toString(lineNo);
+        try {
+            switch (task) {
+                case CLASIFICAR:   classify(text, v); break;
+                case EQUIVALENCIA: equivalence(text, v); break;
+                case MULTISALIDA:  multiOutput(text, v); break;
+                case FORMAS:       normalForms(text, v); break;
+                default:           simplify(text, v); break;
+            }
+        } catch (Throwable ex) {
+            // un StackOverflowError o un OutOfMemoryError en una linea no debe cortar el lote;
+            // solo la interrupcion (cierre del pool) se propaga
+            if (Thread.currentThread().isInterrupted()) throw ex;
+            // la fila conserva la entrada y lleva el mensaje en la ultima columna
+            if (v[1] == null) v[1] = text;
+            v[columns.length - 1] = describe(ex);
+        }
+        return v;
+    }
+
+    private String[] errorRow(long lineNo, String text, Throwable ex) {
+        String[] v = new String[columns.length];
+        v[0] = Long.toString(lineNo);
+        v[1] = text;
+        v[columns.length - 1] = describe(ex);
+        return v;
+    }
+
+    private static String describe(Throwable ex) {
+        if (ex instanceof RuntimeException) return String.valueOf(ex.getMessage());
+        return ex.getMessage() == null ? ex.getClass().getSimpleName() : ex.getClass().getSimpleName() + ": " + ex.getMessage();
+    }
+
+    private static void classify(String text, String[] v) {
+        v[1] = text;
+        BooleanExpression expr = new BooleanExpression(text);
+        List<String> vars = expr.getOrderedVariables();
+        v[2] = String.join(",", vars);
+        Verifier.Classification c = Verifier.classify(text, expr.getProgram(), vars, null);
+        v[3] = c.kind.toString();
+        v[4] = c.trueCount == null ? "" : c.trueCount.toString();
+        v[5] = c.engine;
+        v[6] = Long.toString(c.micros);
+    }
+
+    private static void equivalence(String text, String[] v) {
+        int tab = text.indexOf('\t');
+        if (tab < 0) throw new IllegalArgumentException("Se esperan dos expresiones separadas por tabulador");
+        String a = text.substring(0, tab).trim(), b = text.substring(tab + 1).trim();
+        v[1] = a;
+        v[2] = b;
+        BooleanExpression e1 = new BooleanExpression(a), e2 = new BooleanExpression(b);
+        List<String> vars = BooleanExpression.union(e1, e2);
+        Verifier.Equivalence r = Verifier.equivalence(a, b, e1, e2, vars, null);
+        v[3] = r.equivalent() ? "SI" : "NO";
+        v[4] = r.equivalent() ? "" : Verifier.describeAssignment(vars, r.counterexample);
+        v[5] = r.engine;
+        v[6] = Long.toString(r.micros);
+    }
+
+    private void simplify(String text, String[] v) {
+        int tab = text.indexOf('\t');
+        String expr = tab < 0 ? text : text.substring(0, tab).trim();
+        v[1] = expr;
+        v[2] = tab < 0 ? "" : text.substring(tab + 1).trim();
+        v[3] = mode.name();
+        long t0 = System.nanoTime();
+        AlgebraicSimplifier.SimplifyResult r = AlgebraicSimplifier.simplifyPretty(expr, DontCares.parse(v[2]), mode, null);
+        v[4] = r.result;
+        v[5] = r.factored ? "factorizada" : "sop";
+        v[6] = r.factored ? "" : Integer.toString(r.result.equals("0") ? 0 : r.result.split("\\|").length);
+        v[7] = Long.toString((System.nanoTime() - t0) / 1000);
+    }
+
+    private static void multiOutput(String text, String[] v) {
+        v[1] = text;
+        long t0 = System.nanoTime();
+        List<MultiOutputMinimizer.Output> outputs = MultiOutputMinimizer.parse(text);
+        MultiOutputMinimizer.Result r = MultiOutputMinimizer.minimize(outputs, null);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < outputs.size(); i++) {
+            if (i > 0) sb.append("; ");
+            sb.append(outputs.get(i).name).append(": ").append(r.expressions[i]);
+        }
+        v[2] = sb.toString();
+        v[3] = Integer.toString(r.products.size());
+        v[4] = Integer.toString(r.shared());
+        v[5] = Integer.toString(r.independentProducts);
+        v[6] = Long.toString((System.nanoTime() - t0) / 1000);
+    }
+
+    private static void normalForms(String text, String[] v) {
+        v[1] = text;
+        long t0 = System.nanoTime();
+        NormalForms.Result r = NormalForms.of(text, null);
+        v[2] = Integer.toString(r.cnf.clauses.size());
+        v[3] = Integer.toString(r.cnf.auxiliaryVars());
+        v[4] = r.factored == null ? "" : r.factored.text;
+        v[5] = r.factored == null ? "" : Integer.toString(r.factored.literals);
+        v[6] = r.dnf == null ? "" : r.dnf;
+        v[7] = r.dnf == null ? "" : Integer.toString(r.dnfTerms);
+        v[8] = Long.toString((System.nanoTime() - t0) / 1000);
+    }
+
+    /* ---------------------------------------
+       Formatos de salida
+       --------------------------------------- */
+    private static String tsv(String[] values) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) sb.append('\t');
+            String s = values[i];
+            if (s != null) sb.append(s.replace('\t', ' ').replace('\n', ' ').replace('\r', ' '));
+        }
+        return sb.toString();
+    }
+
+    private String json(String[] values) {
+        StringBuilder sb = new StringBuilder("{");
+        boolean first = true;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) continue;
+            if (!first) sb.append(',');
+            first = false;
+            sb.append('"').append(columns[i]).append("\":");
+            if (NUMERIC.contains(columns[i]) && !values[i].isEmpty()) sb.append(values[i]);
+            else quote(sb, values[i]);
+        }
+        return sb.append('}').toString();
+    }
+
+    private static void quote(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':  sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
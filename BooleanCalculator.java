@@ -3,10 +3,11 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 
 /**
@@ -22,17 +23,28 @@ import javax.swing.table.TableCellRenderer;
 public class BooleanCalculator extends JFrame {
     private JTextField expressionField;
     private JTextField expression2Field;
+    private JTextField dontCareField;
     private JTextArea resultArea;
     private JTable truthTable;
-    private DefaultTableModel tableModel;
+    private TruthTableModel tableModel;
+    private KarnaughMap karnaughMap;
+    private JCheckBox verifyOnlyBox;
+    private JCheckBox metricsBox;
+    private JComboBox<AlgebraicSimplifier.Mode> simplifyModeBox;
+    private JButton cancelButton;
+    private JProgressBar progressBar;
+    private final List<JButton> actionButtons = new ArrayList<>();
+    private BackgroundTask currentTask;
 
     // Indices de columnas (se setean al construir el modelo)
     private int expr1Col = -1;
     private int expr2Col = -1;
     private int eqCol    = -1;
 
-    // Filas donde las expresiones difieren (solo en modo equivalencia)
-    private final Set<Integer> diffRows = new HashSet<>();
+    // Navegacion por filas que difieren (solo en modo equivalencia)
+    private JButton prevDiffButton;
+    private JButton nextDiffButton;
+    private JLabel diffLabel;
 
     // Colores
     private static final Color COL_EXPR1_BG = new Color(225, 239, 255); // azul muy claro
@@ -42,6 +54,14 @@ public class BooleanCalculator extends JFrame {
     private static final Font  BOLD_FONT    = new Font("Consolas", Font.BOLD, 12);
     private static final Font  PLAIN_FONT   = new Font("Consolas", Font.PLAIN, 12);
 
+    // Por encima de este numero de variables no se muestra la tabla. JTable ubica las filas
+    // con coordenadas int, pero 2^22 filas de 25 px son unos 105 millones de pixeles, lejos
+    // de 2^31 (el limite real rondaria las 2^26 filas); el modelo es virtual y la navegacion
+    // por diferencias recorre la columna de bits, asi que 22 variables se muestran completas
+    private static final int TABLE_MAX_VARS = 22;
+    // Periodo de refresco de la barra de progreso (ms)
+    private static final int PROGRESS_REFRESH_MS = 100;
+
     public BooleanCalculator() {
         initializeGUI();
     }
@@ -86,7 +106,7 @@ public class BooleanCalculator extends JFrame {
         gbc.gridx = 0; gbc.gridy = 0; gbc.gridwidth = 2;
         panel.add(titleLabel, gbc);
 
-        JLabel instructionLabel = new JLabel("<html><i>Use: A,B,C...  ~ ! (NOT)  & (AND)  | (OR)  ^ (XOR)  -> or > (IMPLIES)  <-> or = (EQUIV)</i></html>");
+        JLabel instructionLabel = new JLabel("<html><i>Use: A, B, x17, clk...  ~ ! (NOT)  & (AND)  | (OR)  ^ (XOR)  -> or > (IMPLIES)  <-> or = (EQUIV)</i></html>");
         instructionLabel.setFont(new Font("Arial", Font.PLAIN, 11));
         instructionLabel.setForeground(new Color(102, 102, 102));
         gbc.gridy = 1;
@@ -122,6 +142,22 @@ public class BooleanCalculator extends JFrame {
         gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL;
         panel.add(expression2Field, gbc);
 
+        gbc.gridy = 4;
+        JLabel label3 = new JLabel("Indiferencias (opcional):");
+        label3.setFont(new Font("Arial", Font.BOLD, 12));
+        gbc.gridx = 0; gbc.fill = GridBagConstraints.NONE; gbc.anchor = GridBagConstraints.WEST;
+        panel.add(label3, gbc);
+
+        dontCareField = new JTextField(36);
+        dontCareField.setFont(new Font("Consolas", Font.PLAIN, 14));
+        dontCareField.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(new Color(180, 180, 180), 1),
+                new EmptyBorder(5, 8, 5, 8)
+        ));
+        dontCareField.setToolTipText("Solo para simplificar: una expresion o minterminos de la Expresion 1, p.ej. m(1,5,7)");
+        gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL;
+        panel.add(dontCareField, gbc);
+
         return panel;
     }
 
@@ -131,19 +167,61 @@ public class BooleanCalculator extends JFrame {
 
         JButton calculateButton   = createStyledButton("Calcular Tabla de Verdad", new Color(70, 130, 180));
         JButton equivalenceButton = createStyledButton("Verificar Equivalencia",  new Color(60, 150, 100));
-        JButton simplifyAlgButton = createStyledButton("Simplificar (Algebra)",   new Color(124, 98, 180));
+        JButton simplifyAlgButton = createStyledButton("Simplificar",             new Color(124, 98, 180));
+        JButton multiOutputButton = createStyledButton("Multi-salida",            new Color(150, 90, 150));
+        JButton normalFormsButton = createStyledButton("Formas normales",         new Color(170, 120, 60));
+        JButton exportButton      = createStyledButton("Exportar Tabla",          new Color(90, 110, 140));
         JButton clearButton       = createStyledButton("Limpiar",                 new Color(200, 80, 80));
 
         calculateButton.addActionListener(e -> calculateTruthTable());
         equivalenceButton.addActionListener(e -> checkEquivalence());
         simplifyAlgButton.addActionListener(e -> simplifyAlgebra());
+        multiOutputButton.addActionListener(e -> minimizeMultiOutput());
+        multiOutputButton.setToolTipText("Minimiza juntas las salidas de la Expresion 1 separadas por ';' (p.ej. a: A&B; b: A|C)");
+        normalFormsButton.addActionListener(e -> showNormalForms());
+        normalFormsButton.setToolTipText("CNF de Tseitin, forma factorizada y DNF (hasta " + AlgebraicSimplifier.dnfBudget() + " terminos)");
+        exportButton.addActionListener(e -> exportTable());
         clearButton.addActionListener(e -> clearAll());
 
         panel.add(calculateButton);
         panel.add(equivalenceButton);
         panel.add(simplifyAlgButton);
+
+        simplifyModeBox = new JComboBox<>(AlgebraicSimplifier.Mode.values());
+        simplifyModeBox.setFont(new Font("Arial", Font.PLAIN, 12));
+        simplifyModeBox.setToolTipText("Metodo de simplificacion");
+        panel.add(simplifyModeBox);
+        panel.add(multiOutputButton);
+        panel.add(normalFormsButton);
+        panel.add(exportButton);
         panel.add(clearButton);
 
+        cancelButton = createStyledButton("Cancelar", new Color(120, 120, 120));
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(e -> cancelTask());
+        panel.add(cancelButton);
+        actionButtons.addAll(Arrays.asList(calculateButton, equivalenceButton, simplifyAlgButton, multiOutputButton, normalFormsButton, exportButton, clearButton));
+
+        verifyOnlyBox = new JCheckBox("Solo verificar (sin tabla)");
+        verifyOnlyBox.setFont(new Font("Arial", Font.PLAIN, 12));
+        verifyOnlyBox.setBackground(new Color(245, 245, 250));
+        verifyOnlyBox.setToolTipText("Se detiene en el primer contraejemplo y no construye la tabla");
+        panel.add(verifyOnlyBox);
+
+        metricsBox = new JCheckBox("Mostrar metricas");
+        metricsBox.setFont(new Font("Arial", Font.PLAIN, 12));
+        metricsBox.setBackground(new Color(245, 245, 250));
+        metricsBox.setToolTipText("Agrega al resultado los tiempos por fase de la operacion (tambien por JMX: "
+                                  + CalculatorMetrics.OBJECT_NAME + ")");
+        panel.add(metricsBox);
+
+        progressBar = new JProgressBar(0, 1000);
+        progressBar.setStringPainted(true);
+        progressBar.setString("Listo");
+        progressBar.setFont(new Font("Arial", Font.PLAIN, 11));
+        progressBar.setPreferredSize(new Dimension(260, 22));
+        panel.add(progressBar);
+
         return panel;
     }
 
@@ -179,7 +257,7 @@ public class BooleanCalculator extends JFrame {
                 0, 0, new Font("Arial", Font.BOLD, 12), new Color(51, 51, 51)
         ));
 
-        tableModel = new DefaultTableModel();
+        tableModel = new TruthTableModel();
         truthTable = new JTable(tableModel);
         truthTable.setFont(new Font("Consolas", Font.PLAIN, 12));
         truthTable.setRowHeight(25);
@@ -188,20 +266,57 @@ public class BooleanCalculator extends JFrame {
         truthTable.getTableHeader().setForeground(Color.WHITE);
 
         JScrollPane scrollPane2 = new JScrollPane(truthTable);
-        scrollPane2.setBorder(BorderFactory.createTitledBorder(
-                BorderFactory.createLineBorder(new Color(180, 180, 180), 1),
-                "Tabla de Verdad",
-                0, 0, new Font("Arial", Font.BOLD, 12), new Color(51, 51, 51)
-        ));
+        scrollPane2.setBorder(BorderFactory.createLineBorder(new Color(180, 180, 180), 1));
         scrollPane2.setPreferredSize(new Dimension(0, 300));
 
+        JPanel nav = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 0));
+        nav.setBackground(new Color(245, 245, 250));
+        diffLabel = new JLabel(" ");
+        diffLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+        prevDiffButton = new JButton("< Diferencia anterior");
+        nextDiffButton = new JButton("Diferencia siguiente >");
+        prevDiffButton.addActionListener(e -> jumpToDifference(false));
+        nextDiffButton.addActionListener(e -> jumpToDifference(true));
+        nav.add(diffLabel);
+        nav.add(prevDiffButton);
+        nav.add(nextDiffButton);
+        updateDiffNavigation(-1);
+
+        JPanel tablePanel = new JPanel(new BorderLayout(0, 4));
+        tablePanel.setBackground(new Color(245, 245, 250));
+        tablePanel.add(scrollPane2, BorderLayout.CENTER);
+        tablePanel.add(nav, BorderLayout.SOUTH);
+
+        // Mapa de Karnaugh: se alimenta de la misma columna de bits que la tabla
+        karnaughMap = new KarnaughMap();
+        JPanel mapTools = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 0));
+        mapTools.setBackground(new Color(245, 245, 250));
+        JButton collapseAll = new JButton("Contraer mapas");
+        JButton expandAll = new JButton("Expandir mapas");
+        collapseAll.addActionListener(e -> karnaughMap.collapseAll(true));
+        expandAll.addActionListener(e -> karnaughMap.collapseAll(false));
+        mapTools.add(collapseAll);
+        mapTools.add(expandAll);
+        JScrollPane mapScroll = new JScrollPane(karnaughMap);
+        mapScroll.setBorder(BorderFactory.createLineBorder(new Color(180, 180, 180), 1));
+        mapScroll.getVerticalScrollBar().setUnitIncrement(16);
+        JPanel mapPanel = new JPanel(new BorderLayout(0, 4));
+        mapPanel.setBackground(new Color(245, 245, 250));
+        mapPanel.add(mapScroll, BorderLayout.CENTER);
+        mapPanel.add(mapTools, BorderLayout.SOUTH);
+
+        JTabbedPane views = new JTabbedPane();
+        views.setFont(new Font("Arial", Font.BOLD, 12));
+        views.addTab("Tabla de Verdad", tablePanel);
+        views.addTab("Mapa de Karnaugh", mapPanel);
+
         panel.add(scrollPane1, BorderLayout.NORTH);
-        panel.add(scrollPane2, BorderLayout.CENTER);
+        panel.add(views, BorderLayout.CENTER);
         return panel;
     }
 
     private void applyRenderers() {
-        TruthTableCellRenderer cellRenderer = new TruthTableCellRenderer(expr1Col, expr2Col, eqCol, diffRows);
+        TruthTableCellRenderer cellRenderer = new TruthTableCellRenderer(expr1Col, expr2Col, eqCol, tableModel);
         truthTable.setDefaultRenderer(Object.class, cellRenderer);
 
         TableCellRenderer defaultHeader = truthTable.getTableHeader().getDefaultRenderer();
@@ -222,47 +337,29 @@ public class BooleanCalculator extends JFrame {
             JOptionPane.showMessageDialog(this, "Por favor ingrese una expresion", "Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
-        try {
-            diffRows.clear();
+        boolean verifyOnly = verifyOnlyBox.isSelected();
+        runTask("Tabla de verdad", "Error al procesar la expresion: ", task -> {
             BooleanExpression boolExpr = new BooleanExpression(expression);
-            Set<Character> variables = boolExpr.getVariables();
-            if (variables.isEmpty()) {
-                resultArea.setText("No se encontraron variables en la expresion");
-                tableModel.setRowCount(0); tableModel.setColumnCount(0);
-                return;
+            List<String> varList = boolExpr.getOrderedVariables();
+            if (varList.isEmpty()) {
+                return () -> { clearTable(); resultArea.setText("No se encontraron variables en la expresion"); };
             }
 
-            List<Character> varList = new ArrayList<>(variables);
-            Collections.sort(varList);
             int numVars = varList.size();
-            int numRows = 1 << numVars;
-
-            String[] columnNames = new String[numVars + 1];
-            for (int i = 0; i < numVars; i++) columnNames[i] = String.valueOf(varList.get(i));
-            columnNames[numVars] = normalizeForHeader(expression);
-            tableModel.setColumnIdentifiers(columnNames);
-            tableModel.setRowCount(0);
-
-            expr1Col = numVars;
-            expr2Col = -1;
-            eqCol    = -1;
-
-            int trueCount = 0;
-            for (int mask = 0; mask < numRows; mask++) {
-                Object[] row = new Object[numVars + 1];
-                Map<Character, Boolean> assignment = new HashMap<>();
-                for (int j = 0; j < numVars; j++) {
-                    boolean value = ((mask >> (numVars - 1 - j)) & 1) == 1;
-                    row[j] = value ? "V" : "F";
-                    assignment.put(varList.get(j), value);
-                }
-                boolean result = boolExpr.evaluate(assignment);
-                row[numVars] = result ? "V" : "F";
-                if (result) trueCount++;
-                tableModel.addRow(row);
+            if (verifyOnly || numVars > TruthColumn.MAX_VARS) {
+                String text = classifyOnly(expression, boolExpr.bind(varList), varList, task.monitor);
+                return () -> { clearTable(); resultArea.setText(text); };
             }
+            long numRows = TruthColumn.rowsFor(numVars);
+
+            TruthTableEngine.Sweep sweep = TruthTableEngine.truthTable(boolExpr.bind(varList), task.monitor);
+            TruthColumn column = sweep.col1;
+            long trueCount = sweep.trueCount;
+            boolean showTable = numVars <= TABLE_MAX_VARS;
+            KarnaughMap.Data kmap = numVars <= KarnaughMap.MAX_VARS
+                    ? KarnaughMap.prepare(boolExpr.bind(varList), varList, column) : null;
 
-            applyRenderers();
+            String[] headers = { normalizeForHeader(expression) };
 
             StringBuilder analysis = new StringBuilder();
             analysis.append("ANALISIS DE LA EXPRESION: ").append(expression).append("\n");
@@ -270,16 +367,25 @@ public class BooleanCalculator extends JFrame {
             analysis.append("Variables: ").append(varList).append("\n");
             analysis.append("Filas: ").append(numRows).append("\n");
             analysis.append("Verdaderos: ").append(trueCount).append("\n\n");
+            if (!showTable) analysis.append("(Tabla omitida: mas de ").append(TABLE_MAX_VARS).append(" variables)\n\n");
 
             if (trueCount == numRows)      analysis.append("TIPO: TAUTOLOGIA\n\n");
             else if (trueCount == 0)       analysis.append("TIPO: CONTRADICCION\n\n");
             else                            analysis.append("TIPO: CONTINGENCIA\n\n");
 
-            resultArea.setText(analysis.toString());
-        } catch (RuntimeException ex) {
-            JOptionPane.showMessageDialog(this, "Error al procesar la expresion: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
-        }
+            return () -> {
+                expr1Col = numVars;
+                expr2Col = -1;
+                eqCol    = -1;
+                // El modelo lee la columna de bits: no se crea ningun objeto por fila
+                tableModel.show(varList, headers, column, null, null, showTable ? (int) numRows : 0);
+                applyRenderers();
+                updateDiffNavigation(-1);
+                if (kmap != null) karnaughMap.show(kmap);
+                else karnaughMap.clear("El mapa de Karnaugh admite hasta " + KarnaughMap.MAX_VARS + " variables (hay " + numVars + ")");
+                resultArea.setText(analysis.toString());
+            };
+        });
     }
 
     // ========= EQUIVALENCIA =========
@@ -290,58 +396,32 @@ public class BooleanCalculator extends JFrame {
             JOptionPane.showMessageDialog(this, "Ingrese ambas expresiones para verificar equivalencia", "Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
-        try {
-            diffRows.clear();
-
+        boolean verifyOnly = verifyOnlyBox.isSelected();
+        runTask("Equivalencia", "Error al verificar equivalencia: ", task -> {
             BooleanExpression e1 = new BooleanExpression(expr1);
             BooleanExpression e2 = new BooleanExpression(expr2);
 
-            Set<Character> allVariables = new HashSet<>();
-            allVariables.addAll(e1.getVariables());
-            allVariables.addAll(e2.getVariables());
-            if (allVariables.isEmpty()) {
-                resultArea.setText("No se encontraron variables en las expresiones");
-                tableModel.setRowCount(0); tableModel.setColumnCount(0);
-                return;
+            List<String> varList = BooleanExpression.union(e1, e2);
+            if (varList.isEmpty()) {
+                return () -> { clearTable(); resultArea.setText("No se encontraron variables en las expresiones"); };
             }
 
-            List<Character> varList = new ArrayList<>(allVariables);
-            Collections.sort(varList);
             int numVars = varList.size();
-            int numRows = 1 << numVars;
-
-            String[] columnNames = new String[numVars + 3];
-            for (int i = 0; i < numVars; i++) columnNames[i] = String.valueOf(varList.get(i));
-            columnNames[numVars]     = normalizeForHeader(expr1);
-            columnNames[numVars + 1] = normalizeForHeader(expr2);
-            columnNames[numVars + 2] = "Equivalente";
-            tableModel.setColumnIdentifiers(columnNames);
-            tableModel.setRowCount(0);
-
-            expr1Col = numVars;
-            expr2Col = numVars + 1;
-            eqCol    = numVars + 2;
-
-            boolean areEquivalent = true; int eqRows = 0;
-            for (int mask = 0; mask < numRows; mask++) {
-                Object[] row = new Object[numVars + 3];
-                Map<Character, Boolean> assignment = new HashMap<>();
-                for (int j = 0; j < numVars; j++) {
-                    boolean value = ((mask >> (numVars - 1 - j)) & 1) == 1;
-                    row[j] = value ? "V" : "F";
-                    assignment.put(varList.get(j), value);
-                }
-                boolean r1 = e1.evaluate(assignment);
-                boolean r2 = e2.evaluate(assignment);
-                boolean eq = (r1 == r2);
-                row[numVars]     = r1 ? "V" : "F";
-                row[numVars + 1] = r2 ? "V" : "F";
-                row[numVars + 2] = eq ? "SI" : "NO";
-                if (eq) eqRows++; else { areEquivalent = false; diffRows.add(mask); }
-                tableModel.addRow(row);
+            if (verifyOnly || numVars > TruthColumn.MAX_VARS) {
+                String text = verifyEquivalenceOnly(expr1, expr2, e1, e2, varList, task.monitor);
+                return () -> { clearTable(); resultArea.setText(text); };
             }
+            long numRows = TruthColumn.rowsFor(numVars);
+
+            TruthTableEngine.Sweep sweep = TruthTableEngine.equivalence(e1.bind(varList), e2.bind(varList), task.monitor);
+            TruthColumn c1 = sweep.col1;
+            TruthColumn c2 = sweep.col2;
+            long eqRows = sweep.eqRows;
+            boolean areEquivalent = eqRows == numRows;
+            boolean showTable = numVars <= TABLE_MAX_VARS;
 
-            applyRenderers();
+            String[] headers = { normalizeForHeader(expr1), normalizeForHeader(expr2) };
+            int shownRows = showTable ? (int) numRows : 0;
 
             StringBuilder analysis = new StringBuilder();
             analysis.append("VERIFICACION DE EQUIVALENCIA LOGICA\n");
@@ -350,53 +430,343 @@ public class BooleanCalculator extends JFrame {
             analysis.append("Expresion 2: ").append(expr2).append("\n\n");
             analysis.append("Variables: ").append(varList).append("\n");
             analysis.append("Filas equivalentes: ").append(eqRows).append(" de ").append(numRows).append("\n\n");
+            if (!showTable) analysis.append("(Tabla omitida: mas de ").append(TABLE_MAX_VARS).append(" variables)\n\n");
             if (areEquivalent) analysis.append("RESULTADO: SON LOGICAMENTE EQUIVALENTES\n");
             else               analysis.append("RESULTADO: NO SON EQUIVALENTES\n");
-            resultArea.setText(analysis.toString());
-        } catch (RuntimeException ex) {
-            JOptionPane.showMessageDialog(this, "Error al verificar equivalencia: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
+
+            return () -> {
+                expr1Col = numVars;
+                expr2Col = numVars + 1;
+                eqCol    = numVars + 2;
+                tableModel.show(varList, headers, c1, c2, sweep.diff, shownRows);
+                applyRenderers();
+                updateDiffNavigation(-1);
+                karnaughMap.clear("El mapa de Karnaugh se muestra al calcular la tabla de una sola expresion");
+                resultArea.setText(analysis.toString());
+            };
+        });
+    }
+
+    // ========= EXPORTAR TABLA =========
+    // Se escribe directo desde el evaluador al archivo, sin pasar por el modelo de la tabla.
+    private void exportTable() {
+        String expression = expressionField.getText().trim();
+        if (expression.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Por favor ingrese una expresion", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
         }
+        javax.swing.filechooser.FileNameExtensionFilter csv =
+                new javax.swing.filechooser.FileNameExtensionFilter("CSV (*.csv)", "csv");
+        javax.swing.filechooser.FileNameExtensionFilter bin =
+                new javax.swing.filechooser.FileNameExtensionFilter("Binario empaquetado (*.btt)", "btt");
+        javax.swing.filechooser.FileNameExtensionFilter mapped =
+                new javax.swing.filechooser.FileNameExtensionFilter("Binario mapeado en memoria (*.btt)", "btt");
+        JFileChooser chooser = new JFileChooser();
+        chooser.setAcceptAllFileFilterUsed(false);
+        chooser.addChoosableFileFilter(csv);
+        chooser.addChoosableFileFilter(bin);
+        chooser.addChoosableFileFilter(mapped);
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        javax.swing.filechooser.FileFilter kind = chooser.getFileFilter();
+        String ext = kind == csv ? ".csv" : ".btt";
+        String path = chooser.getSelectedFile().getPath();
+        java.nio.file.Path file = java.nio.file.Paths.get(path.toLowerCase(Locale.ROOT).endsWith(ext) ? path : path + ext);
+
+        runTask("Exportacion", "Error al exportar: ", task -> {
+            BooleanExpression boolExpr = new BooleanExpression(expression);
+            List<String> varList = boolExpr.getOrderedVariables();
+            if (varList.isEmpty()) throw new RuntimeException("No se encontraron variables en la expresion");
+            long t0 = System.nanoTime();
+            long rows = kind == csv
+                    ? TruthTableExporter.writeCsv(boolExpr.getProgram(), varList, normalizeForHeader(expression), file, task.monitor)
+                    : TruthTableExporter.writeBinary(boolExpr.getProgram(), varList, expression, file, kind == mapped, task.monitor);
+            long millis = (System.nanoTime() - t0) / 1_000_000;
+            long bytes = java.nio.file.Files.size(file);
+            String text = "EXPORTACION: " + expression + "\n"
+                    + "===============================================\n\n"
+                    + "Archivo: " + file + "\n"
+                    + "Filas: " + rows + "\n"
+                    + "Bytes: " + bytes + "\n"
+                    + "Tiempo: " + millis + " ms\n";
+            return () -> resultArea.setText(text);
+        });
     }
 
-    // ========= SIMPLIFICACION ALGEBRAICA =========
+    // ========= SIMPLIFICACION (metodo del selector) =========
     private void simplifyAlgebra() {
         String expr = expressionField.getText().trim();
         if (expr.isEmpty()) {
             JOptionPane.showMessageDialog(this, "Ingrese una expresion para simplificar", "Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
-        try {
-            AlgebraicSimplifier.SimplifyResult r = AlgebraicSimplifier.simplifyPretty(expr);
+        AlgebraicSimplifier.Mode mode = (AlgebraicSimplifier.Mode) simplifyModeBox.getSelectedItem();
+        String dcText = dontCareField.getText().trim();
+        // el tipo de resultado se conoce al terminar: si la DNF pasa del limite queda factorizada
+        String title = " - " + mode + "\n"
+                + (dcText.isEmpty() ? "" : "Indiferencias: " + dcText + "\n")
+                + "===============================================\n\n";
+        resultArea.setText("SIMPLIFICACION" + title);
+        runTask("Simplificacion", "Error en simplificacion: ", task -> {
+            // Cada paso se publica al EDT; process() los agrega por lotes
+            AlgebraicSimplifier.SimplifyResult r =
+                    AlgebraicSimplifier.simplifyPretty(expr, DontCares.parse(dcText), mode, task::step);
+
+            String kind = r.factored ? "Forma factorizada" : "Suma de Productos";
+            StringBuilder sb = new StringBuilder("SIMPLIFICACION (" + kind + ")" + title);
+            for (String line : r.steps) sb.append(line).append("\n");
+            sb.append("\nResultado final (").append(kind.toLowerCase(Locale.ROOT)).append("): ").append(r.result).append("\n");
+            return () -> resultArea.setText(sb.toString());
+        });
+    }
 
-            StringBuilder sb = new StringBuilder();
-            sb.append("SIMPLIFICACION ALGEBRAICA (Suma de Productos)\n");
-            sb.append("===============================================\n\n");
+    // ========= MINIMIZACION MULTI-SALIDA =========
+    // Las salidas van en la Expresion 1 separadas por ';'; se minimizan juntas compartiendo productos.
+    private void minimizeMultiOutput() {
+        String text = expressionField.getText().trim();
+        if (text.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Ingrese las salidas separadas por ';' (p.ej. a: A&B; b: A|C)", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        String header = "MINIMIZACION MULTI-SALIDA (Suma de Productos)\n"
+                + "===============================================\n\n";
+        resultArea.setText(header);
+        runTask("Multi-salida", "Error en minimizacion multi-salida: ", task -> {
+            List<MultiOutputMinimizer.Output> outputs = MultiOutputMinimizer.parse(text);
+            MultiOutputMinimizer.Result r = MultiOutputMinimizer.minimize(outputs, task::step);
+
+            StringBuilder sb = new StringBuilder(header);
             for (String line : r.steps) sb.append(line).append("\n");
-            sb.append("\nResultado final: ").append(r.result).append("\n");
+            sb.append("\nResultado:\n");
+            for (int i = 0; i < outputs.size(); i++)
+                sb.append("  ").append(outputs.get(i).name).append(" = ").append(r.expressions[i]).append("\n");
+            sb.append("\nProductos: ").append(r.products.size()).append(" (").append(r.shared()).append(" compartidos)")
+              .append(", por separado: ").append(r.independentProducts).append("\n");
+            sb.append("Entradas de compuerta: ").append(r.gateInputs())
+              .append(", por separado: ").append(r.independentInputs).append("\n");
+            return () -> resultArea.setText(sb.toString());
+        });
+    }
 
-            resultArea.setText(sb.toString());
-        } catch (RuntimeException ex) {
-            JOptionPane.showMessageDialog(this, "Error en simplificacion: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
+    // ========= FORMAS NORMALES =========
+    // CNF de Tseitin y forma factorizada (lineales) y DNF solo si no pasa del limite de terminos.
+    private void showNormalForms() {
+        String expr = expressionField.getText().trim();
+        if (expr.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Ingrese una expresion", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
         }
+        String header = "FORMAS NORMALES (CNF de Tseitin, factorizada, DNF)\n"
+                + "===============================================\n\n";
+        resultArea.setText(header);
+        runTask("Formas normales", "Error en formas normales: ", task -> {
+            NormalForms.Result r = NormalForms.of(expr, task::step);
+
+            StringBuilder sb = new StringBuilder(header);
+            for (String line : r.steps) sb.append(line).append("\n");
+            sb.append("\nCNF de Tseitin: ").append(r.cnf.clauses.size()).append(" clausulas, ")
+              .append(r.cnf.auxiliaryVars()).append(" variables auxiliares\n");
+            sb.append("Forma factorizada: ").append(r.factored != null ? r.factored
+                    : "no se escribe (supera " + NormalForms.MAX_LITERALS + " literales)").append("\n");
+            sb.append("DNF: ").append(r.dnf != null ? r.dnf
+                    : "no se calcula (limite " + AlgebraicSimplifier.dnfBudget() + " terminos)").append("\n");
+            return () -> resultArea.setText(sb.toString());
+        });
+    }
+
+    // ========= TAREAS EN SEGUNDO PLANO =========
+
+    /** Calculo que corre fuera del EDT; devuelve la actualizacion de la interfaz. */
+    private interface Job {
+        Runnable run(BackgroundTask task) throws Exception;
+    }
+
+    private void runTask(String title, String errorPrefix, Job job) {
+        if (currentTask != null) return;
+        currentTask = new BackgroundTask(title, errorPrefix, job);
+        setBusy(true);
+        currentTask.execute();
+    }
+
+    private void cancelTask() {
+        if (currentTask == null) return;
+        currentTask.monitor.cancel();   // corta el barrido paralelo
+        currentTask.cancel(true);       // interrumpe BDD, SAT y simplificadores
+    }
+
+    private void setBusy(boolean busy) {
+        for (JButton b : actionButtons) b.setEnabled(!busy);
+        cancelButton.setEnabled(busy);
+        progressBar.setValue(0);
+        progressBar.setIndeterminate(busy);
+        progressBar.setString(busy ? currentTask.title + "..." : "Listo");
+    }
+
+    /**
+     * SwingWorker de las operaciones pesadas. El progreso de filas se lee del
+     * Monitor con un Timer; los pasos de simplificacion llegan por publish().
+     */
+    private final class BackgroundTask extends SwingWorker<Runnable, String> {
+        final String title;
+        final String errorPrefix;
+        final Job job;
+        final TruthTableEngine.Monitor monitor = new TruthTableEngine.Monitor();
+        final javax.swing.Timer refresh;
+        final CalculatorMetrics.Snapshot metrics = CalculatorMetrics.get().snapshot();
+        private int steps;
+
+        BackgroundTask(String title, String errorPrefix, Job job) {
+            this.title = title;
+            this.errorPrefix = errorPrefix;
+            this.job = job;
+            this.refresh = new javax.swing.Timer(PROGRESS_REFRESH_MS, e -> showRows());
+            refresh.start();
+        }
+
+        /** Llamado desde el hilo de trabajo por cada paso de simplificacion. */
+        void step(String line) { publish(line); }
+
+        @Override
+        protected Runnable doInBackground() throws Exception {
+            return job.run(this);
+        }
+
+        @Override
+        protected void process(List<String> lines) {
+            if (isDone()) return;
+            steps += lines.size();
+            StringBuilder sb = new StringBuilder();
+            for (String line : lines) sb.append(line).append("\n");
+            resultArea.append(sb.toString());
+            progressBar.setString(title + ": " + steps + " pasos");
+        }
+
+        private void showRows() {
+            long total = monitor.total();
+            if (total == 0) return;
+            long done = Math.min(monitor.done(), total);
+            progressBar.setIndeterminate(false);
+            progressBar.setValue((int) (done * 1000 / total));
+            progressBar.setString(title + ": filas " + done + " / " + total);
+        }
+
+        @Override
+        protected void done() {
+            refresh.stop();
+            currentTask = null;
+            setBusy(false);
+            try {
+                get().run();
+                if (metricsBox.isSelected()) resultArea.append("\n" + CalculatorMetrics.get().summary(metrics));
+            } catch (CancellationException ex) {
+                clearTable();
+                resultArea.setText("Operacion cancelada: " + title + "\n");
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof CancellationException) {
+                    clearTable();
+                    resultArea.setText("Operacion cancelada: " + title + "\n");
+                    return;
+                }
+                JOptionPane.showMessageDialog(BooleanCalculator.this, errorPrefix + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                cause.printStackTrace();
+            }
+        }
+    }
+
+    // ========= VERIFICACION RAPIDA (sin tabla) =========
+    // El calculo esta en Verifier (compartido con el modo por lotes); aqui solo se arma el informe.
+    private static String classifyOnly(String expression, BooleanExpression.Program program, List<String> varList,
+                                       TruthTableEngine.Monitor monitor) {
+        Verifier.Classification c = Verifier.classify(expression, program, varList, monitor);
+
+        StringBuilder analysis = new StringBuilder();
+        analysis.append("VERIFICACION RAPIDA: ").append(expression).append("\n");
+        analysis.append("===============================================\n\n");
+        analysis.append("Variables: ").append(varList).append("\n");
+        analysis.append("Motor: ").append(c.engine).append("\n");
+        if (c.bddStats != null) analysis.append("BDD: ").append(c.bddStats).append("\n");
+        if (c.trueCount != null) analysis.append("Verdaderos: ").append(c.trueCount).append("\n");
+        analysis.append("Tiempo: ").append(c.micros).append(" us\n\n");
+        analysis.append("TIPO: ").append(c.kind).append("\n");
+        if (c.kind == Tseitin.Kind.CONTINGENCIA) {
+            analysis.append("\n");
+            analysis.append("Verdadera en:  ").append(Verifier.describeAssignment(varList, c.trueAsg)).append("\n");
+            analysis.append("Falsa en:      ").append(Verifier.describeAssignment(varList, c.falseAsg)).append("\n");
+        }
+        return analysis.toString();
+    }
+
+    private static String verifyEquivalenceOnly(String expr1, String expr2, BooleanExpression e1,
+                                                BooleanExpression e2, List<String> varList,
+                                                TruthTableEngine.Monitor monitor) {
+        Verifier.Equivalence r = Verifier.equivalence(expr1, expr2, e1, e2, varList, monitor);
+
+        StringBuilder analysis = new StringBuilder();
+        analysis.append("VERIFICACION RAPIDA DE EQUIVALENCIA\n");
+        analysis.append("===============================================\n\n");
+        analysis.append("Expresion 1: ").append(expr1).append("\n");
+        analysis.append("Expresion 2: ").append(expr2).append("\n\n");
+        analysis.append("Variables: ").append(varList).append("\n");
+        analysis.append("Motor: ").append(r.engine).append("\n");
+        if (r.bddStats != null) analysis.append("BDD: ").append(r.bddStats).append("\n");
+        analysis.append("Tiempo: ").append(r.micros).append(" us\n\n");
+        if (r.equivalent()) {
+            analysis.append("RESULTADO: SON LOGICAMENTE EQUIVALENTES\n");
+        } else {
+            analysis.append("RESULTADO: NO SON EQUIVALENTES\n\n");
+            analysis.append("Contraejemplo: ").append(Verifier.describeAssignment(varList, r.counterexample)).append("\n");
+            analysis.append("  Expresion 1 = ").append(e1.evaluate(varList, r.counterexample) ? "V" : "F").append("\n");
+            analysis.append("  Expresion 2 = ").append(e2.evaluate(varList, r.counterexample) ? "V" : "F").append("\n");
+        }
+        return analysis.toString();
+    }
+
+    private void clearTable() {
+        tableModel.clear();
+        karnaughMap.clear("Calcule una tabla de verdad para ver su mapa");
+        updateDiffNavigation(-1);
+    }
+
+    // Salta a la siguiente (o anterior) fila que difiere desde la seleccion, dando la vuelta al final
+    private void jumpToDifference(boolean forward) {
+        int rows = tableModel.getRowCount();
+        if (tableModel.differenceCount() == 0) return;
+        int sel = truthTable.getSelectedRow();
+        int row;
+        if (forward) {
+            row = tableModel.nextDifference(sel + 1);
+            if (row < 0) row = tableModel.nextDifference(0);
+        } else {
+            row = tableModel.previousDifference(sel < 0 ? rows - 1 : sel - 1);
+            if (row < 0) row = tableModel.previousDifference(rows - 1);
+        }
+        truthTable.setRowSelectionInterval(row, row);
+        truthTable.scrollRectToVisible(truthTable.getCellRect(row, 0, true));
+        updateDiffNavigation(row);
+    }
+
+    private void updateDiffNavigation(int row) {
+        long count = tableModel.differenceCount();
+        prevDiffButton.setEnabled(count > 0);
+        nextDiffButton.setEnabled(count > 0);
+        if (count == 0) diffLabel.setText(" ");
+        else if (row < 0) diffLabel.setText(count + " filas difieren");
+        else diffLabel.setText("Diferencia " + (tableModel.differenceIndex(row) + 1) + " de " + count + " (fila " + row + ")");
     }
 
     private void clearAll() {
         expressionField.setText("");
         expression2Field.setText("");
+        dontCareField.setText("");
         resultArea.setText("");
-        tableModel.setRowCount(0);
-        tableModel.setColumnCount(0);
-        diffRows.clear();
+        clearTable();
     }
 
     private static String normalizeForHeader(String s){
-        return s.replace("->", ">").replace("<->", "=")
-                .replace("AND", "&").replace("and", "&")
-                .replace("OR", "|").replace("or", "|")
-                .replace("XOR", "^").replace("xor", "^")
-                .replace("NOT", "~").replace("not", "~");
+        return ExpressionParser.tokenize(s).display();
     }
 
     public static void main(String[] args) {
@@ -418,13 +788,13 @@ public class BooleanCalculator extends JFrame {
         private final int expr1Col;
         private final int expr2Col;
         private final int eqCol;
-        private final Set<Integer> diffRows;
+        private final TruthTableModel model;
 
-        TruthTableCellRenderer(int expr1Col, int expr2Col, int eqCol, Set<Integer> diffRows) {
+        TruthTableCellRenderer(int expr1Col, int expr2Col, int eqCol, TruthTableModel model) {
             this.expr1Col = expr1Col;
             this.expr2Col = expr2Col;
             this.eqCol    = eqCol;
-            this.diffRows = diffRows;
+            this.model    = model;
             setHorizontalAlignment(SwingConstants.CENTER);
         }
 
@@ -446,7 +816,7 @@ public class BooleanCalculator extends JFrame {
             if (isExpr2) setBackground(COL_EXPR2_BG);
             if (isExpr1 || isExpr2) setFont(BOLD_FONT);
 
-            if (diffRows.contains(row)) {
+            if (model.isDifferent(row)) {   // un bit de la columna de diferencias
                 if (isExpr1 || isExpr2) setBackground(DIFF_EXPR_BG);
                 if (isEq) { setBackground(DIFF_EQ_BG); setFont(BOLD_FONT); }
             }
@@ -482,538 +852,3 @@ public class BooleanCalculator extends JFrame {
         }
     }
 }
-
-/* =======================
-   Parser / Evaluador (para tabla y equivalencia)
-   ======================= */
-class BooleanExpression {
-    private final String expr; // normalized
-    private final Set<Character> variables;
-
-    public BooleanExpression(String expression) {
-        this.expr = preprocessExpression(expression);
-        this.variables = extractVariables(this.expr);
-        if (this.expr.isEmpty()) throw new RuntimeException("Expresion vacia");
-        checkParenthesesBalance(this.expr);
-    }
-
-    private static String preprocessExpression(String expr) {
-        if (expr == null) return "";
-        String e = expr.replaceAll("\\s+", "");
-        // normalize longer tokens first
-        e = e.replace("<->", "=").replace("<=>", "=").replace("BICONDITIONAL", "=").replace("biconditional", "=").replace("IFF", "=").replace("iff", "=");
-        e = e.replace("->", ">").replace("IMPLIES", ">").replace("implies", ">");
-        e = e.replace("AND", "&").replace("and", "&");
-        e = e.replace("OR", "|").replace("or", "|");
-        e = e.replace("XOR", "^").replace("xor", "^");
-        e = e.replace("NOT", "~").replace("not", "~").replace("!", "~");
-        // constants
-        e = e.replace("true", "1").replace("TRUE", "1").replace("T", "1");
-        e = e.replace("false", "0").replace("FALSE", "0").replace("F", "0");
-        return e;
-    }
-
-    private static void checkParenthesesBalance(String e){
-        int bal = 0;
-        for(char ch : e.toCharArray()){
-            if(ch=='(') bal++;
-            else if(ch==')') bal--;
-            if(bal<0) throw new RuntimeException("Parentesis desbalanceados");
-        }
-        if(bal!=0) throw new RuntimeException("Parentesis desbalanceados");
-    }
-
-    private static boolean isVariable(char c){
-        return Character.isLetter(c);
-    }
-
-    private static Set<Character> extractVariables(String e){
-        Set<Character> vars = new HashSet<>();
-        for(char c : e.toCharArray()) if(isVariable(c)) vars.add(c);
-        return vars;
-    }
-
-    public Set<Character> getVariables() { return new HashSet<>(variables); }
-
-    public boolean evaluate(Map<Character, Boolean> assignment) {
-        return eval(stripOuter(expr), assignment);
-    }
-
-    private static String stripOuter(String s){
-        String e = s;
-        while(e.length()>=2 && e.charAt(0)=='(' && e.charAt(e.length()-1)==')' && matchingOuterParens(e)){
-            e = e.substring(1, e.length()-1);
-        }
-        return e;
-    }
-    private static boolean matchingOuterParens(String e){
-        int bal=0; for(int i=0;i<e.length();i++){ char c=e.charAt(i); if(c=='(') bal++; else if(c==')'){ bal--; if(bal==0 && i!=e.length()-1) return false; } }
-        return true;
-    }
-
-    // precedence: lowest (=, >, |, ^, &) then unary ~
-    private static boolean eval(String expr, Map<Character, Boolean> asg){
-        String e = stripOuter(expr);
-        if(e.isEmpty()) throw new RuntimeException("Sintaxis invalida (vacio)");
-
-        int pos;
-        if((pos = findMainOp(e, '=')) >= 0) return applyEquiv(e, pos, asg);
-        if((pos = findMainOp(e, '>')) >= 0)  return applyImpl (e, pos, asg);
-        if((pos = findMainOp(e, '|')) >= 0)  return applyBin  (e, pos, asg, '|');
-        if((pos = findMainOp(e, '^')) >= 0)  return applyBin  (e, pos, asg, '^');
-        if((pos = findMainOp(e, '&')) >= 0)  return applyBin  (e, pos, asg, '&');
-
-        if(e.charAt(0) == '~') return !eval(e.substring(1), asg);
-
-        if(e.equals("1")) return true;
-        if(e.equals("0")) return false;
-        if(e.length()==1 && Character.isLetter(e.charAt(0))) return asg.getOrDefault(e.charAt(0), false);
-
-        throw new RuntimeException("Sintaxis invalida cerca de: " + e);
-    }
-
-    private static int findMainOp(String e, char target){
-        int bal=0;
-        for(int i=e.length()-1;i>=0;i--){
-            char c = e.charAt(i);
-            if(c==')') bal++;
-            else if(c=='(') bal--;
-            else if(bal==0 && c==target) { if(i>0) return i; }
-        }
-        return -1;
-    }
-
-    private static boolean applyBin(String e, int pos, Map<Character, Boolean> asg, char op){
-        String L = e.substring(0, pos);
-        String R = e.substring(pos+1);
-        boolean lv = eval(L, asg);
-        boolean rv = eval(R, asg);
-        switch(op){
-            case '&': return (lv & rv);
-            case '|': return (lv | rv);
-            case '^': return (lv ^ rv);
-            default: throw new IllegalStateException();
-        }
-    }
-
-    private static boolean applyImpl(String e, int pos, Map<Character, Boolean> asg){
-        String L = e.substring(0, pos);
-        String R = e.substring(pos+1);
-        return (!eval(L, asg)) | eval(R, asg);
-    }
-    private static boolean applyEquiv(String e, int pos, Map<Character, Boolean> asg){
-        String L = e.substring(0, pos);
-        String R = e.substring(pos+1);
-        return eval(L, asg) == eval(R, asg);
-    }
-}
-
-/* =========================================================
-   Simplificador ALGEBRAICO con pasos y LEYES (ASCII)
-   ========================================================= */
-class AlgebraicSimplifier {
-
-    // ===== AST =====
-    interface Node { }
-    static class Var implements Node { final String name; Var(String n){name=n;} }
-    static class Not implements Node { final Node x; Not(Node x){this.x=x;} }
-    static class And implements Node { final Node l,r; And(Node l, Node r){this.l=l; this.r=r;} }
-    static class Or  implements Node { final Node l,r; Or (Node l, Node r){this.l=l; this.r=r;} }
-    static class Const implements Node { final boolean v; Const(boolean v){this.v=v;} }
-
-    static class SimplifyResult { final List<String> steps; final String result; SimplifyResult(List<String> s, String r){steps=s; result=r;} }
-
-    // ====== API principal ======
-    static AlgebraicSimplifier.SimplifyResult simplifyPretty(String raw) {
-        List<String> steps = new ArrayList<>();
-        steps.add("Expresion inicial: " + raw);
-
-        String normalized = preprocess(raw);
-        Node ast = parse(normalized);
-
-        // Empujar negaciones (De Morgan) – solo si cambia
-        Node nnf = toNNF(ast);
-        if (!toString(ast).equals(toString(nnf))) {
-            steps.add("-> [De Morgan / Doble negacion] " + toString(nnf));
-        }
-        ast = nnf;
-
-        // Expansion (Distributiva) con registro
-        StepWriter w = new StepWriter(steps);
-        List<Term> dnf = expandWithLoggedDistribution(ast, w);
-
-        // 1) Eliminar contradicciones + duplicados
-        List<Term> cleaned = new ArrayList<>();
-        for (Term t : dnf) {
-            if (t.contradictory) {
-                steps.add("-> [Complemento] se elimina termino contradictorio: " + termToString(t));
-            } else {
-                cleaned.add(t);
-            }
-        }
-        dnf = unique(cleaned);
-        steps.add("-> [Idempotencia] " + termsToString(dnf));
-
-        // 2) Reglas adicionales hasta punto fijo:
-        boolean changed;
-        do {
-            changed = false;
-
-            // 2.1) Consenso / Complemento: X·Y + X·Y' = X
-            List<Term> combined = combineOppositeLiterals(dnf, steps);
-            if (!sameSet(dnf, combined)) {
-                dnf = unique(combined);
-                steps.add("-> [Resultado parcial] " + termsToString(dnf));
-                changed = true;
-                continue;
-            }
-
-            // 2.2) Absorcion variante: X + X'·Y = X + Y (si hay termino unitario X)
-            List<Term> dropOpp = dropOppositeUsingUnit(dnf, steps);
-            if (!sameSet(dnf, dropOpp)) {
-                dnf = unique(dropOpp);
-                steps.add("-> [Resultado parcial] " + termsToString(dnf));
-                changed = true;
-                continue;
-            }
-
-            // 2.3) Absorcion clasica: S + S·X = S (subconjunto)
-            List<Term> absorbed = applyAbsorption(dnf, steps);
-            if (!sameSet(dnf, absorbed)) {
-                dnf = unique(absorbed);
-                steps.add("-> [Resultado parcial] " + termsToString(dnf));
-                changed = true;
-            }
-
-        } while (changed);
-
-        String res = dnf.isEmpty() ? "0" : termsToString(dnf);
-        return new SimplifyResult(steps, res);
-    }
-
-    /* --------------------------
-       Impresion de distributiva
-       -------------------------- */
-    static class StepWriter {
-        final List<String> out;
-        StepWriter(List<String> out){ this.out = out; }
-        void dist(Node left, Node right, List<Term> before, List<Term> after) {
-            if (!termsToString(before).equals(termsToString(after))) {
-                out.add("-> [Distributiva] " + termsToString(after));
-            }
-        }
-    }
-
-    /* ---------------------------------------
-       Preprocesado / Parser / NNF
-       --------------------------------------- */
-    static String preprocess(String expr){
-        String e = expr.replaceAll("\\s+","");
-        e = e.replace("<->","=").replace("<=>","=").replace("IFF","=").replace("iff","=").replace("BICONDITIONAL","=").replace("biconditional","=");
-        e = e.replace("->",">").replace("IMPLIES",">").replace("implies",">");
-        e = e.replace("AND","&").replace("and","&");
-        e = e.replace("OR","|").replace("or","|");
-        e = e.replace("XOR","^").replace("xor","^");
-        e = e.replace("NOT","~").replace("not","~").replace("!","~");
-        e = e.replace("TRUE","1").replace("true","1").replace("T","1");
-        e = e.replace("FALSE","0").replace("false","0").replace("F","0");
-        return e;
-    }
-
-    // Parser que acepta =, >, ^ y los reescribe a ~,&,|
-    static Node parse(String s){
-        s = stripOuter(s);
-        if (s.equals("1")) return new Const(true);
-        if (s.equals("0")) return new Const(false);
-
-        int pos;
-        // menor precedencia primero
-        if ((pos=findMainOp(s,'='))>=0) {
-            Node L = parse(s.substring(0,pos));
-            Node R = parse(s.substring(pos+1));
-            // A=B -> (A&B) | (~A&~B)
-            return new Or(new And(L, R), new And(new Not(L), new Not(R)));
-        }
-        if ((pos=findMainOp(s,'>'))>=0) {
-            Node L = parse(s.substring(0,pos));
-            Node R = parse(s.substring(pos+1));
-            // A>B -> ~A | B
-            return new Or(new Not(L), R);
-        }
-        if ((pos=findMainOp(s,'|'))>=0) return new Or(parse(s.substring(0,pos)), parse(s.substring(pos+1)));
-        if ((pos=findMainOp(s,'^'))>=0) {
-            Node L = parse(s.substring(0,pos));
-            Node R = parse(s.substring(pos+1));
-            // A^B -> (A&~B) | (~A&B)
-            return new Or(new And(L, new Not(R)), new And(new Not(L), R));
-        }
-        if ((pos=findMainOp(s,'&'))>=0) return new And(parse(s.substring(0,pos)), parse(s.substring(pos+1)));
-        if (s.startsWith("~")) return new Not(parse(s.substring(1)));
-        if (s.length()==1 && Character.isLetter(s.charAt(0))) return new Var(String.valueOf(s.charAt(0)));
-
-        throw new RuntimeException("Sintaxis invalida: " + s);
-    }
-
-    private static String stripOuter(String s){
-        String e = s;
-        while(e.length()>=2 && e.charAt(0)=='(' && e.charAt(e.length()-1)==')' && matchingOuterParens(e)){
-            e = e.substring(1, e.length()-1);
-        }
-        return e;
-    }
-    private static boolean matchingOuterParens(String e){
-        int bal=0; for(int i=0;i<e.length();i++){ char c=e.charAt(i); if(c=='(') bal++; else if(c==')'){ bal--; if(bal==0 && i!=e.length()-1) return false; } }
-        return true;
-    }
-    private static int findMainOp(String e, char target){
-        int bal=0;
-        for (int i=e.length()-1;i>=0;i--){
-            char c=e.charAt(i);
-            if (c==')') bal++;
-            else if (c=='(') bal--;
-            else if (bal==0 && c==target) return i;
-        }
-        return -1;
-    }
-
-    static Node toNNF(Node n){
-        if (n instanceof Not) {
-            Node x = ((Not)n).x;
-            if (x instanceof Const) return new Const(!((Const)x).v);
-            if (x instanceof Var)   return n;
-            if (x instanceof Not)   return toNNF(((Not)x).x); // ~~X
-            if (x instanceof And)   return new Or (toNNF(new Not(((And)x).l)), toNNF(new Not(((And)x).r))); // De Morgan
-            if (x instanceof Or )   return new And(toNNF(new Not(((Or )x).l)), toNNF(new Not(((Or )x).r)));
-        }
-        if (n instanceof And) return new And(toNNF(((And)n).l), toNNF(((And)n).r));
-        if (n instanceof Or ) return new Or (toNNF(((Or )n).l), toNNF(((Or )n).r));
-        return n;
-    }
-
-    /* ---------------------------------------
-       DNF + registro de pasos Distributiva
-       --------------------------------------- */
-    static class Term {
-        final Map<String, Boolean> lits = new LinkedHashMap<>();
-        boolean contradictory = false;
-        Term add(String v, boolean val){
-            Boolean ex = lits.get(v);
-            if (ex == null) lits.put(v,val);
-            else if (ex != val) contradictory = true;
-            return this;
-        }
-        Term copy(){ Term t=new Term(); t.lits.putAll(lits); t.contradictory=contradictory; return t; }
-    }
-
-    private static List<Term> expandWithLoggedDistribution(Node n, StepWriter w){
-        List<Term> out = expand(n, w);
-        return unique(out);
-    }
-
-    private static List<Term> expand(Node n, StepWriter w){
-        if (n instanceof Const){
-            if (((Const)n).v) return singletonTrue();
-            else return new ArrayList<>();
-        }
-        if (n instanceof Var){
-            Term t = new Term().add(((Var)n).name, true);
-            return new ArrayList<>(Collections.singletonList(t));
-        }
-        if (n instanceof Not && ((Not)n).x instanceof Var){
-            Term t = new Term().add(((Var)((Not)n).x).name, false);
-            return new ArrayList<>(Collections.singletonList(t));
-        }
-        if (n instanceof Or){
-            List<Term> L = expand(((Or)n).l, w);
-            List<Term> R = expand(((Or)n).r, w);
-            List<Term> before = joinCopy(L,R);
-            List<Term> out = new ArrayList<>(L); out.addAll(R);
-            w.dist(((Or)n).l, ((Or)n).r, before, out);
-            return out;
-        }
-        if (n instanceof And){
-            List<Term> L = expand(((And)n).l, w);
-            List<Term> R = expand(((And)n).r, w);
-            List<Term> before = joinCopy(L,R);
-            List<Term> out = new ArrayList<>();
-            for (Term a : L) for (Term b : R){
-                Term t = a.copy();
-                for (Map.Entry<String,Boolean> e : b.lits.entrySet()) t.add(e.getKey(), e.getValue());
-                out.add(t);
-            }
-            w.dist(((And)n).l, ((And)n).r, before, out);
-            return out;
-        }
-        throw new RuntimeException("No soportado en DNF: " + toString(n));
-    }
-
-    private static List<Term> joinCopy(List<Term> A, List<Term> B){
-        List<Term> x = new ArrayList<>();
-        x.addAll(A); x.addAll(B);
-        return x;
-    }
-
-    private static List<Term> singletonTrue(){
-        return new ArrayList<>(Collections.singletonList(new Term())); // termino vacio = 1
-    }
-
-    private static List<Term> unique(List<Term> terms){
-        List<Term> out = new ArrayList<>();
-        Set<String> seen = new HashSet<>();
-        for (Term t : terms){
-            if (t.contradictory) continue;
-            String key = termKey(t);
-            if (!seen.contains(key)){ out.add(t); seen.add(key); }
-        }
-        return out;
-    }
-
-    /* ====== Reglas de reduccion adicionales ====== */
-
-    // Consenso: X·Y + X·Y' = X  (combina dos terminos que difieren en un solo literal)
-    private static List<Term> combineOppositeLiterals(List<Term> terms, List<String> steps){
-        List<Term> out = new ArrayList<>(terms);
-        boolean changed = true;
-        while (changed){
-            changed = false;
-            outer:
-            for (int i=0;i<out.size();i++){
-                for (int j=i+1;j<out.size();j++){
-                    Term A = out.get(i), B = out.get(j);
-                    if (A.lits.size() != B.lits.size()) continue;
-                    String diffVar = null;
-                    boolean ok = true;
-                    for (String k : A.lits.keySet()){
-                        Boolean av = A.lits.get(k);
-                        Boolean bv = B.lits.get(k);
-                        if (bv == null){ ok=false; break; }
-                        if (!Objects.equals(av, bv)){
-                            if (diffVar != null){ ok=false; break; }
-                            diffVar = k;
-                        }
-                    }
-                    if (ok && diffVar != null){
-                        Term C = A.copy();
-                        C.lits.remove(diffVar); // X·Y + X·Y' => X (quitamos Y)
-                        steps.add("-> [Consenso] " + termToString(A) + " + " + termToString(B) + " => " + termToString(C));
-                        out.remove(j); out.remove(i);
-                        out.add(C);
-                        changed = true;
-                        break outer;
-                    }
-                }
-            }
-        }
-        return out;
-    }
-
-    // Absorcion variante: X + X'·Y = X + Y  (si hay termino unitario X)
-    private static List<Term> dropOppositeUsingUnit(List<Term> terms, List<String> steps){
-        List<Term> out = new ArrayList<>(terms);
-        boolean changed = true;
-        while (changed){
-            changed = false;
-            outer:
-            for (Term unit : new ArrayList<>(out)){
-                if (unit.lits.size() != 1) continue;
-                String v = unit.lits.keySet().iterator().next();
-                boolean val = unit.lits.get(v);
-                for (int i=0;i<out.size();i++){
-                    Term t = out.get(i);
-                    if (t == unit) continue;
-                    Boolean other = t.lits.get(v);
-                    if (other != null && other != val){
-                        Term reduced = t.copy();
-                        reduced.lits.remove(v);
-                        steps.add("-> [Absorcion] " + termToString(unit) + " + " + termToString(t) + " => " + termToString(unit) + " + " + termToString(reduced));
-                        out.remove(i);
-                        out.add(reduced);
-                        changed = true;
-                        break outer;
-                    }
-                }
-            }
-        }
-        return out;
-    }
-
-    // Absorcion clasica: si A subseteq B, entonces A + B = A
-    private static List<Term> applyAbsorption(List<Term> terms, List<String> steps){
-        List<Term> out = new ArrayList<>(terms);
-        boolean changed = true;
-        while (changed){
-            changed = false;
-            outer:
-            for (int i=0;i<out.size();i++){
-                for (int j=0;j<out.size();j++){
-                    if (i==j) continue;
-                    Term A = out.get(i), B = out.get(j);
-                    if (isSubset(A,B)) {
-                        steps.add("-> [Absorcion] " + termToString(B) + " absorbido por " + termToString(A));
-                        out.remove(j);
-                        changed = true;
-                        break outer;
-                    }
-                }
-            }
-        }
-        out.sort(Comparator.comparingInt(t->t.lits.size()));
-        return out;
-    }
-
-    private static boolean isSubset(Term a, Term b){
-        for (Map.Entry<String,Boolean> e : a.lits.entrySet()){
-            Boolean bv = b.lits.get(e.getKey());
-            if (bv == null || !Objects.equals(bv, e.getValue())) return false;
-        }
-        return true;
-    }
-
-    private static boolean sameSet(List<Term> a, List<Term> b){
-        return new HashSet<>(toKeys(a)).equals(new HashSet<>(toKeys(b)));
-    }
-    private static List<String> toKeys(List<Term> t){
-        List<String> k = new ArrayList<>();
-        for (Term x : t) k.add(termKey(x));
-        return k;
-    }
-
-    /* ---------------------------------------
-       Impresion
-       --------------------------------------- */
-    private static String termKey(Term t){
-        List<String> parts = new ArrayList<>();
-        for (Map.Entry<String,Boolean> e : t.lits.entrySet()){
-            parts.add((e.getValue() ? "" : "~") + e.getKey());
-        }
-        Collections.sort(parts);
-        return String.join("&", parts);
-    }
-
-    static String termToString(Term t){
-        if (t.lits.isEmpty()) return "1";
-        List<String> lits = new ArrayList<>();
-        for (Map.Entry<String,Boolean> e : t.lits.entrySet()){
-            lits.add((e.getValue() ? "" : "~") + e.getKey());
-        }
-        Collections.sort(lits);
-        return "(" + String.join(" & ", lits) + ")";
-    }
-
-    static String termsToString(List<Term> terms){
-        if (terms.isEmpty()) return "0";
-        List<String> parts = new ArrayList<>();
-        for (Term t : terms) parts.add(termToString(t));
-        Collections.sort(parts);
-        return String.join(" | ", parts);
-    }
-
-    static String toString(Node n){
-        if (n instanceof Const) return ((Const)n).v ? "1" : "0";
-        if (n instanceof Var)   return ((Var)n).name;
-        if (n instanceof Not)   return "~" + toString(((Not)n).x);
-        if (n instanceof And)   return "(" + toString(((And)n).l) + " & " + toString(((And)n).r) + ")";
-        if (n instanceof Or)    return "(" + toString(((Or )n).l) + " | " + toString(((Or )n).r) + ")";
-        return "?";
-    }
-}
@@ -0,0 +1,222 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/* =======================
+   Parser / Evaluador (para tabla y equivalencia)
+   ======================= */
+class BooleanExpression {
+    /** Programas compilados por flujo de tokens normalizado (renombres que conservan el orden incluidos). */
+    static final ResultCache<String, Program> PROGRAMS = new ResultCache<>("Compilacion", 1024);
+
+    private final List<String> order;      // variables ordenadas (indice = posicion en el programa)
+    private final Map<String,Integer> ids;  // tabla de simbolos: nombre -> indice denso
+    private final Program program;         // compilado una sola vez en el constructor
+
+    public BooleanExpression(String expression) {
+        ExpressionParser.Tokens tokens = ExpressionParser.tokenize(expression);
+        List<String> vars = new ArrayList<>(tokens.variables());
+        vars.sort(ExpressionParser.NAME_ORDER);
+        this.order = Collections.unmodifiableList(vars);
+        this.ids = new HashMap<>();
+        for (int i = 0; i < vars.size(); i++) ids.put(vars.get(i), i);
+        String key = tokens.key(vars);
+        this.program = PROGRAMS.computeIfAbsent(key, () -> compile(tokens, ids, key));
+    }
+
+    public Set<String> getVariables() { return new HashSet<>(order); }
+
+    /** Variables en el orden usado por el programa compilado (orden natural de nombres). */
+    public List<String> getOrderedVariables() { return order; }
+
+    /** Indice denso de una variable en getOrderedVariables(), o -1 si no aparece. */
+    public int indexOf(String name) { return ids.getOrDefault(name, -1); }
+
+    /** Programa postfijo compilado sobre las variables propias de la expresion. */
+    public Program getProgram() { return program; }
+
+    /** Recompila el mismo programa sobre otro orden de variables (p.ej. la union de dos expresiones). */
+    public Program bind(List<String> varOrder) {
+        if (varOrder.equals(order)) return program;
+        return program.remap(order, varOrder);
+    }
+
+    /** values[i] = valor de la variable i de getOrderedVariables(). */
+    public boolean evaluate(boolean[] values) {
+        return program.evaluate(values, program.newStack());
+    }
+
+    /** Evalua con una asignacion indexada por {@code varOrder} (que debe contener las variables propias). */
+    public boolean evaluate(List<String> varOrder, boolean[] values) {
+        Program p = bind(varOrder);
+        return p.evaluate(values, p.newStack());
+    }
+
+    /** Une y ordena las variables de varias expresiones. */
+    static List<String> union(BooleanExpression... exprs) {
+        Set<String> all = new HashSet<>();
+        for (BooleanExpression e : exprs) all.addAll(e.order);
+        List<String> vars = new ArrayList<>(all);
+        vars.sort(ExpressionParser.NAME_ORDER);
+        return vars;
+    }
+
+    /* ---------------------------------------
+       Compilacion: el parser entrega los nodos en
+       postorden, que es directamente el programa postfijo.
+       --------------------------------------- */
+    private static Program compile(ExpressionParser.Tokens tokens, Map<String,Integer> ids, String key){
+        long t0 = CalculatorMetrics.start();
+        Emitter out = new Emitter(ids);
+        ExpressionParser.parse(tokens, out);
+        Program p = new Program(out.toArray(), ids.size(), out.maxDepth, key);
+        CalculatorMetrics.time("compilacion", t0);
+        return p;
+    }
+
+    private static class Emitter implements ExpressionParser.Builder<Void> {
+        final Map<String,Integer> varIndex;
+        int[] code = new int[16];
+        int size, depth, maxDepth;
+        Emitter(Map<String,Integer> varIndex){ this.varIndex = varIndex; }
+        void op(int op, int stackDelta){
+            if(size == code.length) code = Arrays.copyOf(code, size * 2);
+            code[size++] = op;
+            depth += stackDelta;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+        @Override public Void var(String name){ op(Program.VAR | (varIndex.get(name) << Program.OP_BITS), 1); return null; }
+        @Override public Void constant(boolean value){ op(value ? Program.TRUE : Program.FALSE, 1); return null; }
+        @Override public Void not(Void x){ op(Program.NOT, 0); return null; }
+        @Override public Void binary(int op, Void l, Void r){ op(op, -1); return null; }
+        int[] toArray(){ return Arrays.copyOf(code, size); }
+    }
+
+    /**
+     * Programa postfijo inmutable. Cada instruccion ocupa un int: el codigo de
+     * operacion en los bits bajos y, para VAR, el indice de la variable arriba.
+     * La evaluacion no reserva memoria: el llamador aporta la pila (una por hilo).
+     */
+    static final class Program {
+        static final int OP_BITS = 4, OP_MASK = (1 << OP_BITS) - 1;
+        static final int VAR = 0, TRUE = 1, FALSE = 2, NOT = 3, AND = 4, OR = 5, XOR = 6, IMPL = 7, EQUIV = 8;
+
+        private final int[] code;
+        private final int numVars;
+        private final int maxStack;
+        private final String key;   // identifica la funcion para los caches (null si no se conoce)
+
+        Program(int[] code, int numVars, int maxStack, String key){
+            this.code = code;
+            this.numVars = numVars;
+            this.maxStack = Math.max(1, maxStack);
+            this.key = key;
+        }
+
+        int numVars(){ return numVars; }
+        String key(){ return key; }
+        int length(){ return code.length; }
+        int instruction(int pc){ return code[pc]; }
+        boolean[] newStack(){ return new boolean[maxStack]; }
+        int stackSize(){ return maxStack; }
+
+        /** values[i] = valor de la variable i segun el orden con que se compilo. */
+        boolean evaluate(boolean[] values, boolean[] stack){
+            int sp = 0;
+            for(int ins : code){
+                switch(ins & OP_MASK){
+                    case VAR:   stack[sp++] = values[ins >>> OP_BITS]; break;
+                    case TRUE:  stack[sp++] = true;  break;
+                    case FALSE: stack[sp++] = false; break;
+                    case NOT:   stack[sp-1] = !stack[sp-1]; break;
+                    case AND:   sp--; stack[sp-1] = stack[sp-1] & stack[sp]; break;
+                    case OR:    sp--; stack[sp-1] = stack[sp-1] | stack[sp]; break;
+                    case XOR:   sp--; stack[sp-1] = stack[sp-1] ^ stack[sp]; break;
+                    case IMPL:  sp--; stack[sp-1] = !stack[sp-1] | stack[sp]; break;
+                    case EQUIV: sp--; stack[sp-1] = stack[sp-1] == stack[sp]; break;
+                    default: throw new IllegalStateException();
+                }
+            }
+            return stack[0];
+        }
+
+        /** Fila de la tabla: la variable 0 es el bit mas significativo de la mascara. */
+        boolean evaluateRow(long mask, boolean[] stack){
+            int sp = 0;
+            for(int ins : code){
+                switch(ins & OP_MASK){
+                    case VAR:   stack[sp++] = ((mask >>> (numVars - 1 - (ins >>> OP_BITS))) & 1L) != 0; break;
+                    case TRUE:  stack[sp++] = true;  break;
+                    case FALSE: stack[sp++] = false; break;
+                    case NOT:   stack[sp-1] = !stack[sp-1]; break;
+                    case AND:   sp--; stack[sp-1] = stack[sp-1] & stack[sp]; break;
+                    case OR:    sp--; stack[sp-1] = stack[sp-1] | stack[sp]; break;
+                    case XOR:   sp--; stack[sp-1] = stack[sp-1] ^ stack[sp]; break;
+                    case IMPL:  sp--; stack[sp-1] = !stack[sp-1] | stack[sp]; break;
+                    case EQUIV: sp--; stack[sp-1] = stack[sp-1] == stack[sp]; break;
+                    default: throw new IllegalStateException();
+                }
+            }
+            return stack[0];
+        }
+
+        // Patrones de las 6 variables menos significativas dentro de una palabra de 64 filas
+        static final long[] LANES = {
+                0xAAAAAAAAAAAAAAAAL, 0xCCCCCCCCCCCCCCCCL, 0xF0F0F0F0F0F0F0F0L,
+                0xFF00FF00FF00FF00L, 0xFFFF0000FFFF0000L, 0xFFFFFFFF00000000L
+        };
+
+        long[] newWordStack(){ return new long[maxStack]; }
+
+        /**
+         * Evaluacion bit-paralela: el bit i del resultado es el valor de la fila
+         * {@code base + i}. {@code base} debe ser multiplo de 64.
+         */
+        long evaluateWord(long base, long[] stack){
+            int sp = 0;
+            for(int ins : code){
+                switch(ins & OP_MASK){
+                    case VAR: {
+                        int bit = numVars - 1 - (ins >>> OP_BITS);
+                        stack[sp++] = bit < 6 ? LANES[bit] : (((base >>> bit) & 1L) != 0 ? -1L : 0L);
+                        break;
+                    }
+                    case TRUE:  stack[sp++] = -1L; break;
+                    case FALSE: stack[sp++] = 0L;  break;
+                    case NOT:   stack[sp-1] = ~stack[sp-1]; break;
+                    case AND:   sp--; stack[sp-1] = stack[sp-1] & stack[sp]; break;
+                    case OR:    sp--; stack[sp-1] = stack[sp-1] | stack[sp]; break;
+                    case XOR:   sp--; stack[sp-1] = stack[sp-1] ^ stack[sp]; break;
+                    case IMPL:  sp--; stack[sp-1] = ~stack[sp-1] | stack[sp]; break;
+                    case EQUIV: sp--; stack[sp-1] = ~(stack[sp-1] ^ stack[sp]); break;
+                    default: throw new IllegalStateException();
+                }
+            }
+            return stack[0];
+        }
+
+        /** Traduce los indices de variables de {@code from} a {@code to}. */
+        Program remap(List<String> from, List<String> to){
+            Map<String,Integer> pos = new HashMap<>();
+            for(int i=0; i<to.size(); i++) pos.put(to.get(i), i);
+            int[] map = new int[from.size()];
+            for(int i=0; i<map.length; i++){
+                map[i] = pos.getOrDefault(from.get(i), -1);
+            }
+            int[] out = code.clone();
+            for(int pc=0; pc<out.length; pc++){
+                if((out[pc] & OP_MASK) != VAR) continue;
+                int idx = map[out[pc] >>> OP_BITS];
+                if(idx < 0) throw new IllegalArgumentException("Variable ausente: " + from.get(out[pc] >>> OP_BITS));
+                out[pc] = VAR | (idx << OP_BITS);
+            }
+            // la funcion queda determinada por el programa original y la correspondencia de indices
+            return new Program(out, to.size(), maxStack, key == null ? null : key + "@" + to.size() + Arrays.toString(map));
+        }
+    }
+}
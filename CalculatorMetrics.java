@@ -0,0 +1,175 @@
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Metricas de proceso: temporizadores por fase, terminos por regla del
+ * simplificador, filas por segundo de la tabla y tamano maximo de la DNF.
+ * Los contadores son LongAdder, asi que medir desde varios hilos (modo por
+ * lotes, barrido paralelo) no serializa el trabajo. La instancia unica se
+ * publica por JMX la primera vez que se usa.
+ */
+final class CalculatorMetrics implements CalculatorMetricsMXBean {
+    static final String OBJECT_NAME = "BooleanCalculator:type=Metricas";
+
+    private static final CalculatorMetrics INSTANCE = new CalculatorMetrics();
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (JMException | SecurityException ex) {
+            // sin JMX (o ya registrado por otro cargador) las metricas siguen disponibles en proceso
+        }
+    }
+
+    private static final class Timer {
+        final LongAdder calls = new LongAdder(), nanos = new LongAdder();
+        final AtomicLong max = new AtomicLong();
+    }
+
+    private static final class Rule {
+        final LongAdder calls = new LongAdder(), in = new LongAdder(), out = new LongAdder();
+    }
+
+    private final Map<String, Timer> phases = new ConcurrentHashMap<>();
+    private final Map<String, Rule> rules = new ConcurrentHashMap<>();
+    private final LongAdder rows = new LongAdder(), rowNanos = new LongAdder();
+    private final AtomicLong peakDnf = new AtomicLong();
+
+    private CalculatorMetrics() { }
+
+    static CalculatorMetrics get() { return INSTANCE; }
+
+    /* ---------------------------------------
+       Registro (llamado desde los motores)
+       --------------------------------------- */
+
+    /** Marca de inicio para {@link #time}. */
+    static long start() { return System.nanoTime(); }
+
+    /** Suma a {@code phase} el tiempo transcurrido desde {@code t0}. */
+    static void time(String phase, long t0) {
+        long dt = System.nanoTime() - t0;
+        Timer t = INSTANCE.phases.computeIfAbsent(phase, k -> new Timer());
+        t.calls.increment();
+        t.nanos.add(dt);
+        t.max.accumulateAndGet(dt, Math::max);
+    }
+
+    /** Barrido completo de {@code n} filas iniciado en {@code t0} (cuenta tambien como fase "tabla"). */
+    static void rows(long n, long t0) {
+        INSTANCE.rows.add(n);
+        INSTANCE.rowNanos.add(System.nanoTime() - t0);
+        time("tabla", t0);
+    }
+
+    /** Una aplicacion de {@code rule} que convirtio {@code in} terminos en {@code out}. */
+    static void rule(String rule, int in, int out) {
+        Rule r = INSTANCE.rules.computeIfAbsent(rule, k -> new Rule());
+        r.calls.increment();
+        r.in.add(in);
+        r.out.add(out);
+    }
+
+    /** Tamano de una DNF intermedia. */
+    static void dnfSize(int terms) {
+        if (terms > INSTANCE.peakDnf.get()) INSTANCE.peakDnf.accumulateAndGet(terms, Math::max);
+    }
+
+    /* ---------------------------------------
+       Lectura
+       --------------------------------------- */
+
+    @Override public Map<String, Long> getPhaseCalls()     { return collect(phases, t -> t.calls.sum()); }
+    @Override public Map<String, Long> getPhaseMicros()    { return collect(phases, t -> t.nanos.sum() / 1000); }
+    @Override public Map<String, Long> getPhaseMaxMicros() { return collect(phases, t -> t.max.get() / 1000); }
+    @Override public Map<String, Long> getRuleCalls()      { return collect(rules, r -> r.calls.sum()); }
+    @Override public Map<String, Long> getRuleTermsIn()    { return collect(rules, r -> r.in.sum()); }
+    @Override public Map<String, Long> getRuleTermsOut()   { return collect(rules, r -> r.out.sum()); }
+    @Override public long getRowsEvaluated() { return rows.sum(); }
+    @Override public long getPeakDnfTerms() { return peakDnf.get(); }
+
+    @Override
+    public double getRowsPerSecond() {
+        long ns = rowNanos.sum();
+        return ns == 0 ? 0 : rows.sum() * 1e9 / ns;
+    }
+
+    @Override
+    public String[] getCaches() {
+        String s = ResultCache.summary();
+        return s.isEmpty() ? new String[0] : s.split("\n");
+    }
+
+    @Override
+    public String getSummary() { return summary(null); }
+
+    @Override
+    public void reset() {
+        phases.clear();
+        rules.clear();
+        rows.reset();
+        rowNanos.reset();
+        peakDnf.set(0);
+    }
+
+    private static <T> Map<String, Long> collect(Map<String, T> from, Function<T, Long> value) {
+        Map<String, Long> out = new TreeMap<>();
+        from.forEach((k, v) -> out.put(k, value.apply(v)));
+        return out;
+    }
+
+    /** Copia de los contadores, para resumir solo lo ocurrido despues. */
+    static final class Snapshot {
+        final Map<String, Long> phaseCalls, phaseMicros, ruleCalls, ruleIn, ruleOut;
+        final long rows, rowNanos;
+
+        private Snapshot(CalculatorMetrics m) {
+            phaseCalls = m.getPhaseCalls();
+            phaseMicros = m.getPhaseMicros();
+            ruleCalls = m.getRuleCalls();
+            ruleIn = m.getRuleTermsIn();
+            ruleOut = m.getRuleTermsOut();
+            rows = m.rows.sum();
+            rowNanos = m.rowNanos.sum();
+        }
+    }
+
+    Snapshot snapshot() { return new Snapshot(this); }
+
+    /** Resumen de lo acumulado desde {@code since} (todo, si es null). */
+    String summary(Snapshot since) {
+        Snapshot now = snapshot();
+        StringBuilder sb = new StringBuilder("METRICAS\n");
+        sb.append(String.format(Locale.ROOT, "  %-16s %8s %12s%n", "fase", "llamadas", "us"));
+        for (Map.Entry<String, Long> e : now.phaseCalls.entrySet()) {
+            long calls = e.getValue() - base(since == null ? null : since.phaseCalls, e.getKey());
+            if (calls == 0) continue;
+            long us = now.phaseMicros.get(e.getKey()) - base(since == null ? null : since.phaseMicros, e.getKey());
+            sb.append(String.format(Locale.ROOT, "  %-16s %8d %12d%n", e.getKey(), calls, us));
+        }
+        long n = now.rows - (since == null ? 0 : since.rows);
+        long ns = now.rowNanos - (since == null ? 0 : since.rowNanos);
+        if (n > 0) sb.append(String.format(Locale.ROOT, "  filas: %d (%.3g filas/s)%n", n, ns == 0 ? 0.0 : n * 1e9 / ns));
+        for (Map.Entry<String, Long> e : now.ruleCalls.entrySet()) {
+            long calls = e.getValue() - base(since == null ? null : since.ruleCalls, e.getKey());
+            if (calls == 0) continue;
+            long in = now.ruleIn.get(e.getKey()) - base(since == null ? null : since.ruleIn, e.getKey());
+            long out = now.ruleOut.get(e.getKey()) - base(since == null ? null : since.ruleOut, e.getKey());
+            sb.append(String.format(Locale.ROOT, "  regla %-13s %6d veces, terminos %d -> %d%n", e.getKey(), calls, in, out));
+        }
+        sb.append("  DNF maxima: ").append(peakDnf.get()).append(" terminos\n");
+        for (String c : getCaches()) sb.append("  ").append(c).append('\n');
+        return sb.toString();
+    }
+
+    private static long base(Map<String, Long> since, String key) {
+        return since == null ? 0 : since.getOrDefault(key, 0L);
+    }
+}
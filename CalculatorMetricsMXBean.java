@@ -0,0 +1,37 @@
+import java.util.Map;
+
+/**
+ * Vista JMX de las metricas de la calculadora (objeto
+ * {@value CalculatorMetrics#OBJECT_NAME}). Los tiempos estan en microsegundos
+ * y las claves de los mapas son los nombres de fase o de regla.
+ */
+public interface CalculatorMetricsMXBean {
+    /** Llamadas por fase (lexer, parser, compilacion, tabla, nnf, distributiva...). */
+    Map<String, Long> getPhaseCalls();
+    /** Tiempo acumulado por fase. */
+    Map<String, Long> getPhaseMicros();
+    /** Llamada mas lenta por fase. */
+    Map<String, Long> getPhaseMaxMicros();
+
+    /** Veces que se aplico cada regla del simplificador algebraico. */
+    Map<String, Long> getRuleCalls();
+    /** Terminos que entraron a cada regla (suma de todas las llamadas). */
+    Map<String, Long> getRuleTermsIn();
+    /** Terminos que salieron de cada regla. */
+    Map<String, Long> getRuleTermsOut();
+
+    /** Filas evaluadas en barridos completos de tabla. */
+    long getRowsEvaluated();
+    /** Filas por segundo de esos barridos (sobre el tiempo acumulado). */
+    double getRowsPerSecond();
+    /** Mayor DNF intermedia (en terminos) vista durante la distributiva. */
+    long getPeakDnfTerms();
+
+    /** Estado de los caches de resultados, una linea por cache. */
+    String[] getCaches();
+    /** Resumen legible de todo lo anterior. */
+    String getSummary();
+
+    /** Pone a cero los contadores (no vacia los caches). */
+    void reset();
+}
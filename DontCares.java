@@ -0,0 +1,102 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Conjunto de indiferencias (DC-set) de una funcion incompletamente
+ * especificada. Se escribe como una expresion (las filas donde vale 1 no
+ * importan) o como una lista de minterminos: "m(1,3,5)", "d(1,3,5)" o
+ * "1, 3, 5". Sin m(...) / d(...) la lista necesita al menos una coma: "1" o
+ * "0" solos son las constantes (todo indiferente / nada). Los minterminos se
+ * numeran como las filas de la tabla de verdad sobre las variables de la
+ * expresion principal (la primera es el bit mas alto), hasta TruthColumn.MAX_VARS.
+ * Una fila que este a la vez en el ON-set y en el DC-set cuenta como indiferente.
+ */
+final class DontCares {
+    private static final Pattern LIST = Pattern.compile("\\s*[mdMD]\\s*\\(\\s*\\d+(?:\\s*[,\\s]\\s*\\d+)*\\s*\\)\\s*"
+                                                      + "|\\s*\\(?\\s*\\d+(?:\\s*,\\s*\\d+)+\\s*\\)?\\s*");
+
+    /** Texto tal como se escribio. */
+    final String text;
+    /** Expresion del DC-set, o null si es una lista. */
+    final String expression;
+    /** Minterminos ordenados y sin repetir, o null si es una expresion. */
+    final int[] minterms;
+
+    private DontCares(String text, String expression, int[] minterms) {
+        this.text = text;
+        this.expression = expression;
+        this.minterms = minterms;
+    }
+
+    /** Interpreta {@code text}; null si esta vacio. */
+    static DontCares parse(String text) {
+        if (text == null || text.trim().isEmpty()) return null;
+        String t = text.trim();
+        if (!LIST.matcher(t).matches()) {
+            ExpressionParser.tokenize(t);   // errores de sintaxis aqui y no en medio de la simplificacion
+            return new DontCares(t, t, null);
+        }
+        String digits = t.replaceAll("^[mdMD]", "").replaceAll("[()]", "").trim();
+        int[] ms = Arrays.stream(digits.split("[,\\s]+")).mapToInt(s -> {
+            try { return Integer.parseInt(s); }
+            catch (NumberFormatException ex) { throw new RuntimeException("Mintermino fuera de rango: " + s); }
+        }).sorted().distinct().toArray();
+        return new DontCares(t, null, ms);
+    }
+
+    /** Clave normalizada, para caches. */
+    String key() {
+        return expression != null ? ExpressionParser.tokenize(expression).key(null) : "m" + Arrays.toString(minterms);
+    }
+
+    /**
+     * Orden de variables de la funcion: las de {@code on} mas las que agregue
+     * una expresion de indiferencias, en orden natural de nombres.
+     */
+    List<String> variables(BooleanExpression on) {
+        if (expression == null) {
+            check(on.getOrderedVariables().size());
+            return on.getOrderedVariables();
+        }
+        return BooleanExpression.union(on, new BooleanExpression(expression));
+    }
+
+    // Con una lista, cada mintermino debe existir en la tabla de la expresion principal
+    private void check(int numVars) {
+        if (numVars > TruthColumn.MAX_VARS)
+            throw new RuntimeException("Una lista de minterminos admite hasta " + TruthColumn.MAX_VARS
+                                       + " variables (hay " + numVars + "): escriba las indiferencias como expresion");
+        if (minterms.length == 0) return;
+        int max = minterms[minterms.length - 1];
+        if (max >= 1L << numVars)
+            throw new RuntimeException("Mintermino fuera de rango: " + max + " (hay " + numVars + " variables)");
+    }
+
+    /** Columna de bits del DC-set sobre {@code vars} (de {@link #variables(BooleanExpression)}). */
+    TruthColumn column(List<String> vars) {
+        if (expression != null) return TruthTableEngine.truthTable(new BooleanExpression(expression).bind(vars)).col1;
+        long rows = TruthColumn.rowsFor(vars.size());
+        long[] words = new long[TruthColumn.wordsFor(rows)];
+        for (int m : minterms) words[m >>> 6] |= 1L << m;
+        return new TruthColumn(words, rows);
+    }
+
+    /** Minterminos de una lista como productos: bits de {@code vars} afirmados / negados. */
+    List<long[]> literals(List<String> vars) {
+        List<long[]> out = new ArrayList<>(minterms.length);
+        int n = vars.size();
+        for (int m : minterms) {
+            long pos = 0, neg = 0;
+            for (int j = 0; j < n; j++) {
+                if ((m >>> (n - 1 - j) & 1) != 0) pos |= 1L << j;
+                else neg |= 1L << j;
+            }
+            out.add(new long[]{ pos, neg });
+        }
+        return out;
+    }
+
+    @Override public String toString() { return text; }
+}
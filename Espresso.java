@@ -0,0 +1,303 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+/**
+ * Minimizador heuristico en dos niveles al estilo Espresso.
+ *
+ * Cada cubo se guarda en notacion posicional dentro de un long[]: dos bits por
+ * variable (01 = negada, 10 = afirmada, 11 = no aparece), 32 variables por palabra.
+ * El bucle EXPAND / IRREDUNDANT / REDUCE se repite mientras baje el costo
+ * (cubos, literales). La contencion de un cubo en la cobertura se decide con un
+ * test de tautologia por cofactores, asi que nunca hace falta el OFF-set.
+ */
+final class Espresso {
+    /** Iteraciones maximas del bucle principal. */
+    static final int MAX_ITERATIONS = 20;
+
+    private static final long FIELD = 3L;
+    private static final long POS = 2L, NEG = 1L;
+
+    final int numVars;
+    final int words;
+    private final long[] full;       // todas las variables en 11 (cubo universal)
+
+    Espresso(int numVars) {
+        this.numVars = numVars;
+        this.words = Math.max(1, (numVars + 31) / 32);
+        this.full = new long[words];
+        for (int v = 0; v < numVars; v++) full[v >> 5] |= FIELD << ((v & 31) * 2);
+    }
+
+    /* ---------------------------------------
+       Cubos
+       --------------------------------------- */
+    /** Cubo de un producto de literales (bit v de pos/neg = variable v afirmada/negada, hasta 64). */
+    long[] cube(long pos, long neg) {
+        long[] c = full.clone();
+        for (int v = 0; v < numVars && v < 64; v++) {
+            if ((pos >>> v & 1L) != 0) setField(c, v, POS);
+            else if ((neg >>> v & 1L) != 0) setField(c, v, NEG);
+        }
+        return c;
+    }
+
+    long positiveMask(long[] c) {
+        long m = 0;
+        for (int v = 0; v < numVars && v < 64; v++) if (field(c, v) == POS) m |= 1L << v;
+        return m;
+    }
+
+    long negativeMask(long[] c) {
+        long m = 0;
+        for (int v = 0; v < numVars && v < 64; v++) if (field(c, v) == NEG) m |= 1L << v;
+        return m;
+    }
+
+    int field(long[] c, int v) { return (int) ((c[v >> 5] >>> ((v & 31) * 2)) & FIELD); }
+
+    void setField(long[] c, int v, long value) {
+        int shift = (v & 31) * 2;
+        c[v >> 5] = (c[v >> 5] & ~(FIELD << shift)) | (value << shift);
+    }
+
+    /** Copia de {@code base} con la variable v fijada afirmada o negada. */
+    long[] literal(long[] base, int v, boolean positive) {
+        long[] c = base.clone();
+        setField(c, v, positive ? POS : NEG);
+        return c;
+    }
+
+    int literals(long[] c) {
+        int n = 0;
+        for (int v = 0; v < numVars; v++) if (field(c, v) != FIELD) n++;
+        return n;
+    }
+
+    boolean isUniversal(long[] c) { return Arrays.equals(c, full); }
+
+    /** a contiene a b. */
+    static boolean contains(long[] a, long[] b) {
+        for (int w = 0; w < a.length; w++) if ((b[w] & ~a[w]) != 0) return false;
+        return true;
+    }
+
+    /** Cofactor de la cobertura respecto del cubo c (los cubos disjuntos de c desaparecen). */
+    List<long[]> cofactor(List<long[]> cover, long[] c) {
+        List<long[]> out = new ArrayList<>(cover.size());
+        long[] notC = new long[words];
+        for (int w = 0; w < words; w++) notC[w] = ~c[w] & full[w];
+        for (long[] f : cover) {
+            if (disjoint(f, c)) continue;
+            long[] g = new long[words];
+            for (int w = 0; w < words; w++) g[w] = f[w] | notC[w];
+            out.add(g);
+        }
+        return out;
+    }
+
+    /** Algun campo de la interseccion queda en 00. */
+    boolean disjoint(long[] a, long[] b) {
+        for (int w = 0; w < words; w++) {
+            long x = a[w] & b[w];
+            // un campo 00 en x: ni el bit bajo ni el alto estan encendidos
+            long any = (x | (x >>> 1)) & 0x5555555555555555L;
+            long expected = full[w] & 0x5555555555555555L;
+            if (any != expected) return true;
+        }
+        return false;
+    }
+
+    private static final long LOW = 0x5555555555555555L;
+
+    /**
+     * La cobertura vale 1 en todo el espacio. Antes de partir por la variable mas
+     * binada se aplican la reduccion unata (los cubos con un literal de una
+     * variable unata no pueden ser necesarios) y una cota por volumen.
+     */
+    boolean tautology(List<long[]> cover) {
+        List<long[]> f = cover;
+        long[] anyPos = new long[words], anyNeg = new long[words];
+        while (true) {
+            if (f.isEmpty()) return false;
+            Arrays.fill(anyPos, 0);
+            Arrays.fill(anyNeg, 0);
+            double volume = 0;
+            for (long[] c : f) {
+                int lits = 0;
+                for (int w = 0; w < words; w++) {
+                    long lo = c[w] & LOW, hi = (c[w] >>> 1) & LOW;
+                    anyPos[w] |= hi & ~lo;
+                    anyNeg[w] |= lo & ~hi;
+                    lits += Long.bitCount(lo ^ hi);
+                }
+                if (lits == 0) return true;
+                volume += Math.scalb(1.0, -lits);
+            }
+            // la suma de volumenes no llega al espacio completo
+            if (volume < 1.0 - 1e-9) return false;
+            boolean unate = false;
+            for (int w = 0; w < words; w++) if ((anyPos[w] ^ anyNeg[w]) != 0) unate = true;
+            if (!unate) break;
+            List<long[]> kept = new ArrayList<>(f.size());
+            for (long[] c : f) {
+                boolean drop = false;
+                for (int w = 0; w < words && !drop; w++) {
+                    long lits = ((c[w] & LOW) ^ ((c[w] >>> 1) & LOW));
+                    if ((lits & (anyPos[w] ^ anyNeg[w])) != 0) drop = true;
+                }
+                if (!drop) kept.add(c);
+            }
+            f = kept;
+        }
+        // todas las variables restantes son binadas: se parte por la que mas aparece
+        int best = -1, bestScore = -1;
+        for (int w = 0; w < words; w++) {
+            long binate = anyPos[w] & anyNeg[w];
+            while (binate != 0) {
+                int v = (w << 5) + (Long.numberOfTrailingZeros(binate) >> 1);
+                binate &= binate - 1;
+                int score = 0;
+                for (long[] c : f) if (field(c, v) != FIELD) score++;
+                if (score > bestScore) { best = v; bestScore = score; }
+            }
+        }
+        return tautology(cofactor(f, best, true)) && tautology(cofactor(f, best, false));
+    }
+
+    /** Cofactor respecto de un solo literal. */
+    private List<long[]> cofactor(List<long[]> cover, int v, boolean positive) {
+        long opposite = positive ? NEG : POS;
+        List<long[]> out = new ArrayList<>(cover.size());
+        for (long[] c : cover) {
+            int f = field(c, v);
+            if (f == opposite) continue;
+            if (f == FIELD) { out.add(c); continue; }
+            long[] g = c.clone();
+            setField(g, v, FIELD);
+            out.add(g);
+        }
+        return out;
+    }
+
+    /** El cubo c esta cubierto por la union de {@code cover}. */
+    boolean covered(long[] c, List<long[]> cover) {
+        return tautology(cofactor(cover, c));
+    }
+
+    /* ---------------------------------------
+       Bucle principal
+       --------------------------------------- */
+    static final class Cost implements Comparable<Cost> {
+        final int cubes, literals;
+        Cost(int cubes, int literals) { this.cubes = cubes; this.literals = literals; }
+        @Override public int compareTo(Cost o) {
+            return cubes != o.cubes ? Integer.compare(cubes, o.cubes) : Integer.compare(literals, o.literals);
+        }
+        @Override public String toString() { return cubes + " terminos, " + literals + " literales"; }
+    }
+
+    Cost cost(List<long[]> cover) {
+        int lits = 0;
+        for (long[] c : cover) lits += literals(c);
+        return new Cost(cover.size(), lits);
+    }
+
+    /**
+     * Minimiza la cobertura {@code on} usando {@code dc} como indiferencias.
+     * {@code log} recibe una linea por fase (puede ser null).
+     */
+    List<long[]> minimize(List<long[]> on, List<long[]> dc, Consumer<String> log) {
+        List<long[]> f = irredundant(expand(removeContained(new ArrayList<>(on)), dc), dc);
+        Cost best = cost(f);
+        if (log != null) log.accept("EXPAND + IRREDUNDANT: " + best);
+        for (int it = 1; it <= MAX_ITERATIONS; it++) {
+            List<long[]> g = irredundant(expand(reduce(f, dc), dc), dc);
+            Cost now = cost(g);
+            if (log != null) log.accept("iteracion " + it + " REDUCE + EXPAND + IRREDUNDANT: " + now);
+            if (now.compareTo(best) >= 0) break;
+            f = g;
+            best = now;
+        }
+        return f;
+    }
+
+    /** EXPAND: cada cubo sube literales a 11 mientras siga dentro de ON u DC. */
+    List<long[]> expand(List<long[]> cover, List<long[]> dc) {
+        List<long[]> sorted = new ArrayList<>(cover);
+        sorted.sort(Comparator.comparingInt(this::literals));
+        List<long[]> care = new ArrayList<>(sorted);
+        care.addAll(dc);
+        List<long[]> out = new ArrayList<>();
+        for (long[] c : sorted) {
+            if (Thread.currentThread().isInterrupted()) throw new CancellationException("Operacion cancelada");
+            boolean absorbed = false;
+            for (long[] e : out) if (contains(e, c)) { absorbed = true; break; }
+            if (absorbed) continue;
+            long[] x = c.clone();
+            for (int v = 0; v < numVars; v++) {
+                if (field(x, v) == FIELD) continue;
+                long[] raised = x.clone();
+                setField(raised, v, FIELD);
+                if (covered(raised, care)) x = raised;
+            }
+            out.add(x);
+        }
+        return removeContained(out);
+    }
+
+    /** IRREDUNDANT: quita los cubos cubiertos por el resto (se prueban primero los pequenos). */
+    List<long[]> irredundant(List<long[]> cover, List<long[]> dc) {
+        List<long[]> out = new ArrayList<>(cover);
+        out.sort(Comparator.comparingInt(this::literals).reversed());
+        for (int i = 0; i < out.size(); ) {
+            List<long[]> rest = new ArrayList<>(out.size() - 1 + dc.size());
+            for (int j = 0; j < out.size(); j++) if (j != i) rest.add(out.get(j));
+            rest.addAll(dc);
+            if (covered(out.get(i), rest)) out.remove(i);
+            else i++;
+        }
+        return out;
+    }
+
+    /**
+     * REDUCE: cada cubo baja a un semiespacio cuando la otra mitad ya la cubren
+     * los demas, para que el siguiente EXPAND pueda crecer en otra direccion.
+     */
+    List<long[]> reduce(List<long[]> cover, List<long[]> dc) {
+        List<long[]> out = new ArrayList<>(cover);
+        out.sort(Comparator.comparingInt(this::literals));
+        for (int i = 0; i < out.size(); i++) {
+            List<long[]> rest = new ArrayList<>(out.size() - 1 + dc.size());
+            for (int j = 0; j < out.size(); j++) if (j != i) rest.add(out.get(j));
+            rest.addAll(dc);
+            long[] c = out.get(i);
+            for (int v = 0; v < numVars; v++) {
+                if (field(c, v) != FIELD) continue;
+                if (covered(literal(c, v, false), rest)) c = literal(c, v, true);
+                else if (covered(literal(c, v, true), rest)) c = literal(c, v, false);
+            }
+            out.set(i, c);
+        }
+        return out;
+    }
+
+    private static List<long[]> removeContained(List<long[]> cover) {
+        List<long[]> out = new ArrayList<>();
+        for (int i = 0; i < cover.size(); i++) {
+            long[] c = cover.get(i);
+            boolean drop = false;
+            for (int j = 0; j < cover.size() && !drop; j++) {
+                if (i == j) continue;
+                long[] d = cover.get(j);
+                // se conserva el primero de dos cubos iguales
+                if (contains(d, c) && (!Arrays.equals(c, d) || j < i)) drop = true;
+            }
+            if (!drop) out.add(c);
+        }
+        return out;
+    }
+}
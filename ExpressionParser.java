@@ -0,0 +1,317 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Analizador comun de BooleanExpression y AlgebraicSimplifier. Un lexer lineal
+ * reconoce operadores, sinonimos (AND, ->, IFF...), constantes y variables en
+ * una sola pasada, y un parser por escalada de precedencia recorre los tokens
+ * una vez entregando los nodos a un {@link Builder}, en postorden.
+ *
+ * Precedencia, de menor a mayor: = , > , | , ^ , & y el unario ~. Todos los
+ * binarios asocian a la izquierda (A>B>C es (A>B)>C).
+ *
+ * Un identificador es una letra o '_' seguida de letras, digitos o '_' (A, clk,
+ * x17). Las palabras clave y las constantes T/F solo cuentan como identificador
+ * completo: "Temp" o "notA" son variables.
+ */
+final class ExpressionParser {
+    // Los codigos de operador coinciden con los de BooleanExpression.Program
+    static final int VAR = 0, TRUE = 1, FALSE = 2, NOT = 3, AND = 4, OR = 5, XOR = 6, IMPL = 7, EQUIV = 8;
+    static final int LPAREN = 9, RPAREN = 10, END = 11;
+
+    private static final String SYMBOLS = "?10~&|^>=()";
+
+    /** Precedencia de cada operador binario (-1 si no lo es). */
+    private static final int[] PRECEDENCE = { -1, -1, -1, -1, 4, 2, 3, 1, 0, -1, -1, -1 };
+
+    // Identificadores reservados: sinonimos de operadores y constantes
+    private static final Map<String, Integer> WORDS = new HashMap<>();
+    static {
+        for (String w : new String[]{ "BICONDITIONAL", "biconditional", "IFF", "iff" }) WORDS.put(w, EQUIV);
+        for (String w : new String[]{ "IMPLIES", "implies" }) WORDS.put(w, IMPL);
+        for (String w : new String[]{ "AND", "and" }) WORDS.put(w, AND);
+        for (String w : new String[]{ "OR", "or" }) WORDS.put(w, OR);
+        for (String w : new String[]{ "XOR", "xor" }) WORDS.put(w, XOR);
+        for (String w : new String[]{ "NOT", "not" }) WORDS.put(w, NOT);
+        for (String w : new String[]{ "TRUE", "true", "T" }) WORDS.put(w, TRUE);
+        for (String w : new String[]{ "FALSE", "false", "F" }) WORDS.put(w, FALSE);
+    }
+
+    /**
+     * Orden natural de nombres: las series de digitos se comparan por valor,
+     * asi x2 va antes que x10. Con nombres de una letra coincide con el alfabetico.
+     */
+    static final Comparator<String> NAME_ORDER = ExpressionParser::compareNames;
+
+    /** Recibe las construcciones del parser; los hijos llegan siempre antes que el padre. */
+    interface Builder<T> {
+        T var(String name);
+        T constant(boolean value);
+        T not(T x);
+        T binary(int op, T left, T right);
+    }
+
+    private ExpressionParser() { }
+
+    /* ---------------------------------------
+       Lexer
+       --------------------------------------- */
+
+    /** Secuencia de tokens de una expresion; las variables se numeran por orden de aparicion. */
+    static final class Tokens {
+        final String source;
+        final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> ids = new HashMap<>();
+        int[] kind, start, var;
+        int size;
+
+        private Tokens(String source) {
+            this.source = source;
+            int cap = Math.max(16, source.length() / 2);
+            kind = new int[cap];
+            start = new int[cap];
+            var = new int[cap];
+        }
+
+        private void add(int k, int pos, int id) {
+            if (size == kind.length) {
+                kind = Arrays.copyOf(kind, size * 2);
+                start = Arrays.copyOf(start, size * 2);
+                var = Arrays.copyOf(var, size * 2);
+            }
+            kind[size] = k;
+            start[size] = pos;
+            var[size++] = id;
+        }
+
+        private int id(String name) {
+            Integer i = ids.get(name);
+            if (i != null) return i;
+            ids.put(name, names.size());
+            names.add(name);
+            return names.size() - 1;
+        }
+
+        /** Nombres de variables distintos, en orden de aparicion. */
+        List<String> variables() { return names; }
+
+        /**
+         * Flujo de tokens normalizado, para usar como clave de cache: sinonimos y
+         * espacios desaparecen. Con {@code order} cada variable se escribe por su
+         * posicion en esa lista, asi que los renombres que conservan el orden dan
+         * la misma clave; con null, por su nombre.
+         */
+        String key(List<String> order) {
+            int[] rank = new int[names.size()];
+            if (order != null) {
+                Map<String, Integer> pos = new HashMap<>();
+                for (int i = 0; i < order.size(); i++) pos.put(order.get(i), i);
+                for (int i = 0; i < rank.length; i++) rank[i] = pos.getOrDefault(names.get(i), -1);
+            }
+            StringBuilder sb = new StringBuilder(size * 2);
+            for (int i = 0; i < size; i++) {
+                int k = kind[i];
+                if (k == END) break;
+                if (k != VAR) sb.append(SYMBOLS.charAt(k));
+                else if (order == null) sb.append(names.get(var[i])).append(' ');
+                else sb.append('#').append(rank[var[i]]).append(' ');
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Texto para mostrar (encabezados de tabla, CSV): sinonimos como AND o
+         * implies pasan a su simbolo y los identificadores se copian enteros, asi
+         * que notA o door no se tocan.
+         */
+        String display() {
+            StringBuilder sb = new StringBuilder(source.length());
+            for (int i = 0; i < size; i++) {
+                int k = kind[i];
+                if (k == END) break;
+                if (k == VAR) sb.append(names.get(var[i]));
+                else if (PRECEDENCE[k] >= 0) sb.append(' ').append(SYMBOLS.charAt(k)).append(' ');
+                else sb.append(SYMBOLS.charAt(k));
+            }
+            return sb.toString();
+        }
+    }
+
+    static Tokens tokenize(String text) {
+        long t0 = CalculatorMetrics.start();
+        if (text == null) text = "";
+        Tokens t = new Tokens(text);
+        int n = text.length(), depth = 0;
+        for (int i = 0; i < n; ) {
+            char c = text.charAt(i);
+            int k, len = 1;
+            switch (c) {
+                case '&': k = AND; break;
+                case '|': k = OR; break;
+                case '^': k = XOR; break;
+                case '=': k = EQUIV; break;
+                case '>': k = IMPL; break;
+                case '~': case '!': k = NOT; break;
+                case '1': k = TRUE; break;
+                case '0': k = FALSE; break;
+                case '(': k = LPAREN; depth++; break;
+                case ')':
+                    k = RPAREN;
+                    if (--depth < 0) throw new RuntimeException("Parentesis desbalanceados");
+                    break;
+                case '-':
+                    if (!text.startsWith("->", i)) throw syntaxError(text, i);
+                    k = IMPL; len = 2;
+                    break;
+                case '<':
+                    if (!text.startsWith("<->", i) && !text.startsWith("<=>", i)) throw syntaxError(text, i);
+                    k = EQUIV; len = 3;
+                    break;
+                default:
+                    if (Character.isWhitespace(c)) { i++; continue; }
+                    if (!Character.isLetter(c) && c != '_') throw syntaxError(text, i);
+                    while (i + len < n && isIdentifierPart(text.charAt(i + len))) len++;
+                    String name = text.substring(i, i + len);
+                    Integer word = WORDS.get(name);
+                    if (word == null) {
+                        t.add(VAR, i, t.id(name));
+                        i += len;
+                        continue;
+                    }
+                    k = word;
+            }
+            t.add(k, i, -1);
+            i += len;
+        }
+        if (depth != 0) throw new RuntimeException("Parentesis desbalanceados");
+        if (t.size == 0) throw new RuntimeException("Expresion vacia");
+        t.add(END, n, -1);
+        CalculatorMetrics.time("lexer", t0);
+        return t;
+    }
+
+    /* ---------------------------------------
+       Parser (escalada de precedencia)
+       --------------------------------------- */
+
+    static <T> T parse(String text, Builder<T> builder) {
+        return parse(tokenize(text), builder);
+    }
+
+    static <T> T parse(Tokens tokens, Builder<T> builder) {
+        long t0 = CalculatorMetrics.start();
+        T result = new Cursor<>(tokens, builder).parse();
+        CalculatorMetrics.time("parser", t0);
+        return result;
+    }
+
+    /**
+     * Escalada de precedencia con pilas explicitas de operandos y operadores
+     * (shunting-yard): ni los parentesis anidados ni las cadenas largas gastan
+     * pila de Java. Un operador se reduce en cuanto llega otro de precedencia
+     * menor o igual (asociacion a la izquierda); el ~ prefijo se reduce antes
+     * que cualquier binario.
+     */
+    private static final class Cursor<T> {
+        final Tokens t;
+        final Builder<T> b;
+        final List<T> values = new ArrayList<>();
+        int[] ops = new int[16];
+        int top, pos;
+
+        Cursor(Tokens t, Builder<T> b) { this.t = t; this.b = b; }
+
+        T parse() {
+            boolean operand = true;   // se espera un operando (o ~ / parentesis)
+            while (true) {
+                int k = t.kind[pos];
+                if (operand) {
+                    switch (k) {
+                        case NOT: case LPAREN: push(k); break;
+                        case VAR:   values.add(b.var(t.names.get(t.var[pos]))); operand = false; break;
+                        case TRUE:  values.add(b.constant(true)); operand = false; break;
+                        case FALSE: values.add(b.constant(false)); operand = false; break;
+                        default: throw error();
+                    }
+                } else if (PRECEDENCE[k] >= 0) {
+                    while (top > 0 && (ops[top - 1] == NOT
+                            || (ops[top - 1] != LPAREN && PRECEDENCE[ops[top - 1]] >= PRECEDENCE[k]))) reduce();
+                    push(k);
+                    operand = true;
+                } else if (k == RPAREN) {
+                    while (top > 0 && ops[top - 1] != LPAREN) reduce();
+                    if (top == 0) throw error();
+                    top--;
+                } else if (k == END) {
+                    while (top > 0 && ops[top - 1] != LPAREN) reduce();
+                    if (top > 0) throw error();   // falta cerrar un parentesis
+                    return values.get(0);
+                } else {
+                    throw error();
+                }
+                pos++;
+            }
+        }
+
+        private void push(int op) {
+            if (top == ops.length) ops = Arrays.copyOf(ops, top * 2);
+            ops[top++] = op;
+        }
+
+        private void reduce() {
+            int op = ops[--top];
+            T right = values.remove(values.size() - 1);
+            if (op == NOT) { values.add(b.not(right)); return; }
+            T left = values.remove(values.size() - 1);
+            values.add(b.binary(op, left, right));
+        }
+
+        RuntimeException error() {
+            if (t.kind[pos] == END) return new RuntimeException("Sintaxis invalida: la expresion esta incompleta");
+            return syntaxError(t.source, t.start[pos]);
+        }
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static int compareNames(String a, String b) {
+        int i = 0, j = 0, na = a.length(), nb = b.length();
+        while (i < na && j < nb) {
+            char ca = a.charAt(i), cb = b.charAt(j);
+            if (isDigit(ca) && isDigit(cb)) {
+                int ei = i, ej = j;
+                while (ei < na && isDigit(a.charAt(ei))) ei++;
+                while (ej < nb && isDigit(b.charAt(ej))) ej++;
+                // sin ceros a la izquierda, el numero con mas cifras es el mayor
+                while (i < ei - 1 && a.charAt(i) == '0') i++;
+                while (j < ej - 1 && b.charAt(j) == '0') j++;
+                int c = Integer.compare(ei - i, ej - j);
+                for (int d = 0; c == 0 && d < ei - i; d++) c = Character.compare(a.charAt(i + d), b.charAt(j + d));
+                if (c != 0) return c;
+                i = ei;
+                j = ej;
+            } else {
+                if (ca != cb) return Character.compare(ca, cb);
+                i++;
+                j++;
+            }
+        }
+        int c = Integer.compare(na - i, nb - j);
+        return c != 0 ? c : a.compareTo(b);   // x01 y x1: desempate total
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static RuntimeException syntaxError(String text, int at) {
+        String near = text.length() - at > 40 ? text.substring(at, at + 40) + "..." : text.substring(at);
+        return new RuntimeException("Sintaxis invalida cerca de: " + near);
+    }
+}
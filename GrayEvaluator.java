@@ -0,0 +1,130 @@
+/**
+ * Evaluacion incremental de un programa postfijo recorriendo las palabras de
+ * 64 filas en orden de codigo Gray: entre dos palabras consecutivas solo cambia
+ * una variable alta (las 6 bajas son patrones fijos dentro de la palabra), asi
+ * que se guarda el valor de cada nodo y solo se recalcula el cono de esa
+ * variable, es decir sus apariciones y los nodos por encima hasta la raiz.
+ * Los resultados se guardan en la palabra gray(g) = g ^ (g >> 1), de modo que
+ * la columna queda en el orden normal de la tabla.
+ *
+ * La estructura es inmutable y compartible; cada hilo usa su propio {@link Cursor}.
+ */
+final class GrayEvaluator {
+    /** Se usa solo si el trabajo esperado por palabra baja a esta fraccion del programa completo. */
+    private static final double MAX_COST_RATIO = 0.5;
+
+    private final int numVars, size;
+    private final int[] op, left, right;   // por nodo (= instruccion); hijos -1 si no tiene
+    private final int[] varBit;            // VAR: bit de la fila (numVars - 1 - indice); -1 si no es VAR
+    private final int[][] cone;            // cone[b]: nodos que dependen del bit b de la fila, en postorden
+    private final double expectedCost;
+
+    private GrayEvaluator(BooleanExpression.Program p) {
+        numVars = p.numVars();
+        size = p.length();
+        op = new int[size];
+        left = new int[size];
+        right = new int[size];
+        varBit = new int[size];
+        int[] parent = new int[size];
+        int[] stack = new int[size];
+        int sp = 0;
+        for (int i = 0; i < size; i++) {
+            int ins = p.instruction(i);
+            op[i] = ins & BooleanExpression.Program.OP_MASK;
+            left[i] = right[i] = parent[i] = varBit[i] = -1;
+            switch (op[i]) {
+                case BooleanExpression.Program.VAR:   varBit[i] = numVars - 1 - (ins >>> BooleanExpression.Program.OP_BITS); break;
+                case BooleanExpression.Program.TRUE:
+                case BooleanExpression.Program.FALSE: break;
+                case BooleanExpression.Program.NOT:   left[i] = stack[--sp]; parent[left[i]] = i; break;
+                default:
+                    right[i] = stack[--sp];
+                    left[i] = stack[--sp];
+                    parent[left[i]] = parent[right[i]] = i;
+            }
+            stack[sp++] = i;
+        }
+
+        // Conos de las variables altas: marcar desde cada aparicion hacia la raiz
+        cone = new int[numVars][];
+        boolean[] mark = new boolean[size];
+        double cost = 0;
+        for (int b = 6; b < numVars; b++) {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (varBit[i] != b) continue;
+                for (int n = i; n >= 0 && !mark[n]; n = parent[n]) { mark[n] = true; count++; }
+            }
+            int[] c = new int[count];
+            for (int i = 0, k = 0; i < size; i++) if (mark[i]) { c[k++] = i; mark[i] = false; }
+            cone[b] = c;
+            // el bit b cambia en una de cada 2^(b-5) transiciones
+            cost += (double) count / (1L << (b - 5));
+        }
+        expectedCost = cost;
+    }
+
+    /**
+     * Evaluador incremental para {@code p}, o null si no compensa (menos de dos
+     * palabras, o conos tan grandes que rehacer el programa entero cuesta parecido).
+     */
+    static GrayEvaluator of(BooleanExpression.Program p) {
+        if (p.numVars() <= 6) return null;
+        GrayEvaluator g = new GrayEvaluator(p);
+        return g.expectedCost <= MAX_COST_RATIO * g.size ? g : null;
+    }
+
+    /** Instrucciones recalculadas por palabra en promedio (frente a {@code length()} sin cache). */
+    double expectedCost() { return expectedCost; }
+    int length() { return size; }
+
+    static long gray(long g) { return g ^ (g >>> 1); }
+
+    Cursor cursor() { return new Cursor(); }
+
+    /** Estado de un recorrido: valor de cada nodo para la palabra actual. */
+    final class Cursor {
+        private final long[] value = new long[size];
+        private long base;
+
+        /** Evalua todo el programa en la palabra que empieza en la fila {@code base}. */
+        long seek(long base) {
+            this.base = base;
+            for (int i = 0; i < size; i++) eval(i);
+            return value[size - 1];
+        }
+
+        /** Pasa a la palabra vecina cambiando el bit {@code bit} (>= 6) de la fila base. */
+        long flip(int bit) {
+            base ^= 1L << bit;
+            for (int i : cone[bit]) eval(i);
+            return value[size - 1];
+        }
+
+        /** Palabra del paso Gray {@code g}, avanzando desde el paso {@code g - 1}. */
+        long step(long g) {
+            return flip(Long.numberOfTrailingZeros(g) + 6);
+        }
+
+        private void eval(int i) {
+            long[] v = value;
+            switch (op[i]) {
+                case BooleanExpression.Program.VAR: {
+                    int bit = varBit[i];
+                    v[i] = bit < 6 ? BooleanExpression.Program.LANES[bit] : (((base >>> bit) & 1L) != 0 ? -1L : 0L);
+                    break;
+                }
+                case BooleanExpression.Program.TRUE:  v[i] = -1L; break;
+                case BooleanExpression.Program.FALSE: v[i] = 0L;  break;
+                case BooleanExpression.Program.NOT:   v[i] = ~v[left[i]]; break;
+                case BooleanExpression.Program.AND:   v[i] = v[left[i]] & v[right[i]]; break;
+                case BooleanExpression.Program.OR:    v[i] = v[left[i]] | v[right[i]]; break;
+                case BooleanExpression.Program.XOR:   v[i] = v[left[i]] ^ v[right[i]]; break;
+                case BooleanExpression.Program.IMPL:  v[i] = ~v[left[i]] | v[right[i]]; break;
+                case BooleanExpression.Program.EQUIV: v[i] = ~(v[left[i]] ^ v[right[i]]); break;
+                default: throw new IllegalStateException();
+            }
+        }
+    }
+}
@@ -0,0 +1,364 @@
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.JComponent;
+import javax.swing.ToolTipManager;
+
+/**
+ * Mapa de Karnaugh de una columna de la tabla de verdad, con la cobertura
+ * minima de Quine-McCluskey superpuesta. Hasta 6 variables es un solo mapa
+ * (filas y columnas en codigo Gray); con mas, las primeras n-6 variables
+ * eligen uno de varios mapas de 8x8, apilados y plegables con un clic en su
+ * titulo. El valor de cada celda se lee de la columna de bits, sin reevaluar la
+ * expresion, y las celdas se pintan con imagenes de glifos ya dibujadas, asi
+ * que pintar cuesta O(celdas visibles).
+ */
+final class KarnaughMap extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    /** Mas alla de esto (16 mapas de 8x8) el mapa deja de ser legible. */
+    static final int MAX_VARS = 10;
+    /** Variables dentro de cada mapa. */
+    private static final int MAP_VARS = 6;
+
+    private static final int CELL = 34, LABEL = 56, TITLE = 24, GAP = 12, MARGIN = 10;
+    private static final Color ONE_BG = new Color(225, 239, 255);
+    private static final Color GRID = new Color(180, 180, 180);
+    private static final Color TITLE_BG = new Color(70, 130, 180);
+    private static final Color[] LOOPS = {
+        new Color(220, 50, 47), new Color(38, 139, 210), new Color(133, 153, 0), new Color(211, 54, 130),
+        new Color(181, 137, 0), new Color(42, 161, 152), new Color(108, 113, 196), new Color(203, 75, 22)
+    };
+    private static final Font CELL_FONT  = new Font("Consolas", Font.PLAIN, 14);
+    private static final Font LABEL_FONT = new Font("Consolas", Font.PLAIN, 11);
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 12);
+
+    /** Coberturas ya calculadas, por programa compilado. */
+    static final ResultCache<String, List<QuineMcCluskey.Implicant>> COVERS = new ResultCache<>("Karnaugh", 128);
+
+    /** Lo que muestra el mapa: variables, columna y cobertura minima (calculado fuera del EDT). */
+    static final class Data {
+        final List<String> vars;
+        final TruthColumn column;
+        final List<QuineMcCluskey.Implicant> cover;
+
+        private Data(List<String> vars, TruthColumn column, List<QuineMcCluskey.Implicant> cover) {
+            this.vars = vars; this.column = column; this.cover = cover;
+        }
+    }
+
+    /** Prepara el mapa de {@code program} (ligado a {@code vars}) cuya columna es {@code column}. */
+    static Data prepare(BooleanExpression.Program program, List<String> vars, TruthColumn column) {
+        if (vars.size() > MAX_VARS) throw new RuntimeException("El mapa de Karnaugh admite hasta " + MAX_VARS + " variables");
+        int n = vars.size();
+        List<QuineMcCluskey.Implicant> cover = program.key() == null ? null : COVERS.get(program.key());
+        if (cover == null) {
+            cover = QuineMcCluskey.minimize(n, column.setRows(), new int[0]).cover;
+            if (program.key() != null) COVERS.put(program.key(), cover);
+        }
+        return new Data(vars, column, cover);
+    }
+
+    private Data data;
+    private String message = "Calcule una tabla de verdad para ver su mapa";
+    private int n, subVars, rowBits, colBits, maps;
+    private int words;             // longs por celda en loops (64 implicantes cada uno)
+    private long[] loops;          // loops[m * words + w]: bit k = implicante 64 * w + k de la cobertura cubre el mintermino m
+    private long[] fullRows, fullCols;   // implicantes que ocupan todas las filas / columnas del mapa
+    private boolean[] collapsed;
+    private int[] mapTop;          // y del titulo de cada mapa
+    private BufferedImage[] glyphs;
+
+    KarnaughMap() {
+        setBackground(Color.WHITE);
+        setOpaque(true);
+        ToolTipManager.sharedInstance().registerComponent(this);
+        addMouseListener(new MouseAdapter() {
+            @Override public void mouseClicked(MouseEvent e) { toggle(e.getY()); }
+        });
+    }
+
+    void show(Data d) {
+        data = d;
+        n = d.vars.size();
+        subVars = Math.max(0, n - MAP_VARS);
+        int inMap = n - subVars;
+        rowBits = inMap / 2;
+        colBits = inMap - rowBits;
+        maps = 1 << subVars;
+        collapsed = new boolean[maps];
+
+        // mascara de implicantes por celda: se recorre cada cubo una vez
+        words = Math.max(1, (d.cover.size() + 63) / 64);
+        loops = new long[(1 << n) * words];
+        fullRows = new long[words];
+        fullCols = new long[words];
+        int colMask = (1 << colBits) - 1, rowMask = ((1 << rowBits) - 1) << colBits;
+        int k = 0;
+        for (QuineMcCluskey.Implicant imp : d.cover) {
+            int dashes = imp.dashes, w = k >>> 6;
+            long bit = 1L << k;   // el desplazamiento de long toma k mod 64
+            if ((dashes & rowMask) == rowMask) fullRows[w] |= bit;
+            if ((dashes & colMask) == colMask) fullCols[w] |= bit;
+            for (int sub = dashes; ; sub = (sub - 1) & dashes) {
+                loops[(imp.bits | sub) * words + w] |= bit;
+                if (sub == 0) break;
+            }
+            k++;
+        }
+        relayout();
+    }
+
+    void clear(String why) {
+        data = null;
+        message = why;
+        loops = null;
+        relayout();
+    }
+
+    private void relayout() {
+        int w = 2 * MARGIN, h = 2 * MARGIN;
+        if (data != null) {
+            mapTop = new int[maps];
+            int y = MARGIN + TITLE;   // leyenda de variables
+            for (int m = 0; m < maps; m++) {
+                mapTop[m] = y;
+                y += (maps > 1 ? TITLE : 0) + (collapsed[m] ? 0 : LABEL / 2 + (1 << rowBits) * CELL) + GAP;
+            }
+            w += LABEL + (1 << colBits) * CELL;
+            h = y + MARGIN;
+        }
+        setPreferredSize(new Dimension(Math.max(w, 320), Math.max(h, 80)));
+        revalidate();
+        repaint();
+    }
+
+    private void toggle(int y) {
+        if (data == null || maps == 1) return;
+        for (int m = 0; m < maps; m++) {
+            if (y >= mapTop[m] && y < mapTop[m] + TITLE) {
+                collapsed[m] = !collapsed[m];
+                relayout();
+                return;
+            }
+        }
+    }
+
+    /** Pliega o despliega todos los mapas. */
+    void collapseAll(boolean value) {
+        if (data == null) return;
+        Arrays.fill(collapsed, value && maps > 1);
+        relayout();
+    }
+
+    /* ---------------------------------------
+       Pintado
+       --------------------------------------- */
+
+    private static int gray(int i) { return i ^ (i >>> 1); }
+
+    private static String bits(int value, int width) {
+        StringBuilder sb = new StringBuilder(width);
+        for (int b = width - 1; b >= 0; b--) sb.append((value >>> b) & 1);
+        return sb.toString();
+    }
+
+    private String names(int from, int count) {
+        return count == 0 ? "-" : String.join(" ", data.vars.subList(from, from + count));
+    }
+
+    // "0" y "1" dibujados una vez; las celdas solo copian la imagen
+    private BufferedImage[] glyphs() {
+        if (glyphs != null) return glyphs;
+        glyphs = new BufferedImage[2];
+        for (int v = 0; v < 2; v++) {
+            BufferedImage img = new BufferedImage(CELL, CELL, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = img.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setFont(v == 1 ? CELL_FONT.deriveFont(Font.BOLD) : CELL_FONT);
+            g.setColor(v == 1 ? Color.BLACK : Color.GRAY);
+            FontMetrics fm = g.getFontMetrics();
+            String s = String.valueOf(v);
+            g.drawString(s, (CELL - fm.stringWidth(s)) / 2, (CELL + fm.getAscent() - fm.getDescent()) / 2);
+            g.dispose();
+            glyphs[v] = img;
+        }
+        return glyphs;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g0) {
+        Graphics2D g = (Graphics2D) g0.create();
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        if (data == null) {
+            g.setColor(Color.GRAY);
+            g.setFont(TITLE_FONT);
+            g.drawString(message, MARGIN, MARGIN + 16);
+            g.dispose();
+            return;
+        }
+        g.setFont(TITLE_FONT);
+        g.setColor(Color.DARK_GRAY);
+        int inMap = n - subVars;
+        g.drawString((maps > 1 ? maps + " mapas.    " : "") + "Filas: " + names(subVars, rowBits) + "    Columnas: " + names(subVars + rowBits, colBits)
+                     + "    Implicantes: " + data.cover.size(), MARGIN, MARGIN + 14);
+
+        Rectangle clip = g.getClipBounds();
+        for (int m = 0; m < maps; m++) {
+            int top = mapTop[m];
+            int height = (maps > 1 ? TITLE : 0) + (collapsed[m] ? 0 : LABEL / 2 + (1 << rowBits) * CELL);
+            if (clip != null && (top > clip.y + clip.height || top + height < clip.y)) continue;
+            int y = top;
+            if (maps > 1) {
+                paintTitle(g, m, y);
+                y += TITLE;
+            }
+            if (!collapsed[m]) paintMap(g, m << inMap, MARGIN, y);
+        }
+        g.dispose();
+    }
+
+    private void paintTitle(Graphics2D g, int m, int y) {
+        int width = LABEL + (1 << colBits) * CELL;
+        g.setColor(TITLE_BG);
+        g.fillRect(MARGIN, y, width, TITLE - 2);
+        StringBuilder sb = new StringBuilder(collapsed[m] ? "[+] " : "[-] ");
+        for (int j = 0; j < subVars; j++) {
+            if (j > 0) sb.append(", ");
+            sb.append(data.vars.get(j)).append('=').append((m >>> (subVars - 1 - j)) & 1);
+        }
+        g.setColor(Color.WHITE);
+        g.setFont(TITLE_FONT);
+        g.drawString(sb.toString(), MARGIN + 6, y + TITLE - 8);
+    }
+
+    private void paintMap(Graphics2D g, int base, int x0, int y0) {
+        int rowsN = 1 << rowBits, colsN = 1 << colBits;
+        int gx = x0 + LABEL, gy = y0 + LABEL / 2;
+        BufferedImage[] img = glyphs();
+
+        g.setFont(LABEL_FONT);
+        g.setColor(Color.DARK_GRAY);
+        FontMetrics fm = g.getFontMetrics();
+        for (int j = 0; j < colsN; j++) {
+            String s = bits(gray(j), colBits);
+            g.drawString(s, gx + j * CELL + (CELL - fm.stringWidth(s)) / 2, gy - 6);
+        }
+        for (int i = 0; i < rowsN; i++) {
+            String s = rowBits == 0 ? "" : bits(gray(i), rowBits);
+            g.drawString(s, gx - 6 - fm.stringWidth(s), gy + i * CELL + (CELL + fm.getAscent()) / 2 - 2);
+        }
+
+        for (int i = 0; i < rowsN; i++) {
+            for (int j = 0; j < colsN; j++) {
+                int minterm = base | gray(i) << colBits | gray(j);
+                int x = gx + j * CELL, y = gy + i * CELL;
+                boolean one = data.column.get(minterm);
+                if (one) {
+                    g.setColor(ONE_BG);
+                    g.fillRect(x, y, CELL, CELL);
+                }
+                g.drawImage(img[one ? 1 : 0], x, y, null);
+            }
+        }
+        g.setColor(GRID);
+        for (int i = 0; i <= rowsN; i++) g.drawLine(gx, gy + i * CELL, gx + colsN * CELL, gy + i * CELL);
+        for (int j = 0; j <= colsN; j++) g.drawLine(gx + j * CELL, gy, gx + j * CELL, gy + rowsN * CELL);
+
+        // Contornos: en cada celda, los lados cuyo vecino no esta en el mismo implicante.
+        // Los lazos que dan la vuelta quedan abiertos hacia el borde, como en papel,
+        // salvo los que ocupan la dimension entera (no se verian).
+        g.setStroke(new BasicStroke(2f));
+        for (int i = 0; i < rowsN; i++) {
+            for (int j = 0; j < colsN; j++) {
+                int here = base | gray(i) << colBits | gray(j);
+                int up    = base | gray(neighbor(i, -1, rowsN)) << colBits | gray(j);
+                int down  = base | gray(neighbor(i, +1, rowsN)) << colBits | gray(j);
+                int left  = base | gray(i) << colBits | gray(neighbor(j, -1, colsN));
+                int right = base | gray(i) << colBits | gray(neighbor(j, +1, colsN));
+                int x = gx + j * CELL, y = gy + i * CELL;
+                for (int w = 0; w < words; w++) {
+                    for (long bits = loops[here * words + w]; bits != 0; bits &= bits - 1) {
+                        int k = w * 64 + Long.numberOfTrailingZeros(bits);
+                        long mask = 1L << k;
+                        int in = 3 + (k % 4) * 3;
+                        boolean closeRows = rowsN <= 2 || (fullRows[w] & mask) != 0;
+                        boolean closeCols = colsN <= 2 || (fullCols[w] & mask) != 0;
+                        boolean top    = (loops[up * words + w] & mask) == 0 || (i == 0 && closeRows);
+                        boolean bottom = (loops[down * words + w] & mask) == 0 || (i == rowsN - 1 && closeRows);
+                        boolean west   = (loops[left * words + w] & mask) == 0 || (j == 0 && closeCols);
+                        boolean east   = (loops[right * words + w] & mask) == 0 || (j == colsN - 1 && closeCols);
+                        // los lados abiertos llegan al borde de la celda para unirse con la vecina
+                        int x1 = west ? x + in : x, x2 = east ? x + CELL - in : x + CELL;
+                        int y1 = top ? y + in : y, y2 = bottom ? y + CELL - in : y + CELL;
+                        g.setColor(LOOPS[k % LOOPS.length]);
+                        if (top)    g.drawLine(x1, y1, x2, y1);
+                        if (bottom) g.drawLine(x1, y2, x2, y2);
+                        if (west)   g.drawLine(x1, y1, x1, y2);
+                        if (east)   g.drawLine(x2, y1, x2, y2);
+                    }
+                }
+            }
+        }
+        g.setStroke(new BasicStroke(1f));
+    }
+
+    // Vecino en el mapa con vuelta (filas y columnas son ciclicas en codigo Gray);
+    // con una sola fila o columna no hay vecino
+    private static int neighbor(int i, int d, int size) {
+        return size == 1 ? i : (i + d + size) % size;
+    }
+
+    /* ---------------------------------------
+       Ayuda al pasar el raton
+       --------------------------------------- */
+
+    @Override
+    public String getToolTipText(MouseEvent e) {
+        int minterm = mintermAt(e.getX(), e.getY());
+        if (minterm < 0) return null;
+        StringBuilder sb = new StringBuilder("Fila ").append(minterm).append(": ");
+        for (int j = 0; j < n; j++) sb.append(data.vars.get(j)).append('=').append((minterm >>> (n - 1 - j)) & 1).append(' ');
+        sb.append("-> ").append(data.column.get(minterm) ? 1 : 0);
+        List<String> terms = new ArrayList<>();
+        for (int w = 0; w < words; w++) {
+            for (long bits = loops[minterm * words + w]; bits != 0; bits &= bits - 1) {
+                terms.add(implicantToString(data.cover.get(w * 64 + Long.numberOfTrailingZeros(bits))));
+            }
+        }
+        if (!terms.isEmpty()) sb.append("  [").append(String.join(" + ", terms)).append(']');
+        return sb.toString();
+    }
+
+    private String implicantToString(QuineMcCluskey.Implicant imp) {
+        StringBuilder sb = new StringBuilder();
+        for (int j = 0; j < n; j++) {
+            int bit = 1 << (n - 1 - j);
+            if ((imp.dashes & bit) != 0) continue;
+            if (sb.length() > 0) sb.append('&');
+            if ((imp.bits & bit) == 0) sb.append('~');
+            sb.append(data.vars.get(j));
+        }
+        return sb.length() == 0 ? "1" : sb.toString();
+    }
+
+    private int mintermAt(int x, int y) {
+        if (data == null) return -1;
+        int inMap = n - subVars;
+        for (int m = 0; m < maps; m++) {
+            if (collapsed[m]) continue;
+            int gx = MARGIN + LABEL, gy = mapTop[m] + (maps > 1 ? TITLE : 0) + LABEL / 2;
+            int i = Math.floorDiv(y - gy, CELL), j = Math.floorDiv(x - gx, CELL);
+            if (i >= 0 && i < (1 << rowBits) && j >= 0 && j < (1 << colBits)) {
+                return m << inMap | gray(i) << colBits | gray(j);
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,331 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+/**
+ * Minimizacion conjunta de varias salidas sobre las mismas variables (p.ej. un
+ * decodificador de 7 segmentos), compartiendo productos entre salidas.
+ *
+ * Cada salida se evalua una vez con el motor bit-paralelo. Los implicantes
+ * primos multi-salida salen de un Quine-McCluskey con etiquetas: cada
+ * implicante lleva la mascara de salidas en cuyo ON-set esta entero, y al
+ * combinar dos la etiqueta es la interseccion. Un implicante deja de ser primo
+ * solo si otro mas grande conserva toda su etiqueta. La cobertura toma los
+ * esenciales y despues, con criterio voraz, el producto que cubre mas pares
+ * (fila, salida) pendientes por unidad de costo: un producto nuevo cuesta sus
+ * literales mas una entrada de OR; reusar uno ya elegido, solo la entrada de
+ * OR. Al final cada salida descarta los productos que le sobran. Si la
+ * cobertura voraz resulta mas cara que minimizar cada salida por separado
+ * (Quine-McCluskey exacto), se devuelve esta ultima.
+ */
+final class MultiOutputMinimizer {
+    /** Salidas como maximo (la etiqueta es un int). */
+    static final int MAX_OUTPUTS = 31;
+
+    private MultiOutputMinimizer() { }
+
+    /** Una salida: nombre y expresion. */
+    static final class Output {
+        final String name, expression;
+        Output(String name, String expression) { this.name = name; this.expression = expression; }
+    }
+
+    /**
+     * Separa "f1; f2; ..." en salidas. Cada una puede llevar nombre como
+     * "a: expr"; si no, se llaman F1, F2...
+     */
+    static List<Output> parse(String text) {
+        List<Output> out = new ArrayList<>();
+        for (String part : text.split(";")) {
+            String s = part.trim();
+            if (s.isEmpty()) continue;
+            String name = "F" + (out.size() + 1);
+            int colon = s.indexOf(':');
+            if (colon > 0 && s.substring(0, colon).trim().matches("[\\p{L}_][\\p{L}\\p{N}_]*")) {
+                name = s.substring(0, colon).trim();
+                s = s.substring(colon + 1).trim();
+            }
+            out.add(new Output(name, s));
+        }
+        if (out.isEmpty()) throw new RuntimeException("Expresion vacia");
+        if (out.size() > MAX_OUTPUTS) throw new RuntimeException("Se admiten hasta " + MAX_OUTPUTS + " salidas");
+        return out;
+    }
+
+    /** Implicante con la mascara de salidas que puede alimentar. */
+    private static final class Prime {
+        final QuineMcCluskey.Implicant cube;
+        final int tag;
+        Prime(QuineMcCluskey.Implicant cube, int tag) { this.cube = cube; this.tag = tag; }
+    }
+
+    /** Resultado: productos elegidos y, por producto, las salidas que lo usan. */
+    static final class Result {
+        final List<String> vars;
+        final List<Output> outputs;
+        final List<QuineMcCluskey.Implicant> products;
+        final int[] usedBy;                 // usedBy[k]: mascara de salidas que usan products[k]
+        final String[] expressions;         // suma de productos de cada salida
+        final int primes;
+        final int independentProducts, independentInputs;   // minimizando cada salida por separado
+        final List<String> steps;
+
+        Result(List<String> vars, List<Output> outputs, List<QuineMcCluskey.Implicant> products, int[] usedBy,
+               String[] expressions, int primes, int independentProducts, int independentInputs, List<String> steps) {
+            this.vars = vars; this.outputs = outputs; this.products = products; this.usedBy = usedBy;
+            this.expressions = expressions; this.primes = primes;
+            this.independentProducts = independentProducts; this.independentInputs = independentInputs;
+            this.steps = steps;
+        }
+
+        /** Productos usados por mas de una salida. */
+        int shared() {
+            int s = 0;
+            for (int u : usedBy) if (Integer.bitCount(u) > 1) s++;
+            return s;
+        }
+
+        /** Entradas de compuerta: literales de los AND de mas de un literal mas entradas de los OR. */
+        int gateInputs() {
+            return inputs(vars.size(), products, usedBy);
+        }
+    }
+
+    private static int inputs(int n, List<QuineMcCluskey.Implicant> products, int[] usedBy) {
+        int c = 0;
+        for (int k = 0; k < products.size(); k++) {
+            int lits = products.get(k).literals(n);
+            if (lits > 1) c += lits;
+            c += Integer.bitCount(usedBy[k]);
+        }
+        return c;
+    }
+
+    static Result minimize(List<Output> outputs, Consumer<String> listener) {
+        long t0 = CalculatorMetrics.start();
+        List<String> steps = new AlgebraicSimplifier.StepLog(listener);
+        BooleanExpression[] exprs = new BooleanExpression[outputs.size()];
+        for (int i = 0; i < exprs.length; i++) exprs[i] = new BooleanExpression(outputs.get(i).expression);
+        List<String> vars = BooleanExpression.union(exprs);
+        int n = vars.size(), outs = exprs.length;
+        if (n > QuineMcCluskey.MAX_VARS)
+            throw new RuntimeException("La minimizacion multi-salida admite hasta " + QuineMcCluskey.MAX_VARS + " variables (hay " + n + ")");
+        steps.add("Variables compartidas: " + vars);
+
+        // Una columna por salida, evaluada una sola vez
+        long[][] on = new long[outs][];
+        for (int i = 0; i < outs; i++) {
+            TruthColumn c = TruthTableEngine.truthTable(exprs[i].bind(vars)).col1;
+            on[i] = c.words;
+            steps.add("-> [Minterminos] " + outputs.get(i).name + " = " + QuineMcCluskey.mintermList(c.setRows(), 32));
+        }
+
+        List<Prime> primes = primes(n, on);
+        steps.add("-> [Implicantes primos multi-salida] " + primes.size());
+
+        int[] usedBy = cover(n, on, primes);
+        List<QuineMcCluskey.Implicant> products = new ArrayList<>();
+        List<Integer> use = new ArrayList<>();
+        for (int k = 0; k < primes.size(); k++) {
+            if (usedBy[k] == 0) continue;
+            products.add(primes.get(k).cube);
+            use.add(usedBy[k]);
+        }
+        int[] used = use.stream().mapToInt(Integer::intValue).toArray();
+
+        // Referencia: cada salida por separado (los productos identicos cuentan una vez)
+        Map<QuineMcCluskey.Implicant, Integer> alone = new LinkedHashMap<>();
+        for (int i = 0; i < outs; i++) {
+            int[] rows = new TruthColumn(on[i], 1L << n).setRows();
+            for (QuineMcCluskey.Implicant imp : QuineMcCluskey.minimize(n, rows, new int[0]).cover)
+                alone.merge(imp, 1 << i, (a, b) -> a | b);
+        }
+        List<QuineMcCluskey.Implicant> aloneProducts = new ArrayList<>(alone.keySet());
+        int[] aloneUse = alone.values().stream().mapToInt(Integer::intValue).toArray();
+        int aloneInputs = inputs(n, aloneProducts, aloneUse);
+        if (inputs(n, products, used) > aloneInputs) {
+            steps.add("-> [Cobertura] la minimizacion por separado sale mas barata; se usa esa");
+            products = aloneProducts;
+            used = aloneUse;
+        }
+
+        AlgebraicSimplifier.VarTable table = new AlgebraicSimplifier.VarTable(vars);
+        String[] sums = new String[outs];
+        for (int i = 0; i < outs; i++) {
+            List<QuineMcCluskey.Implicant> mine = new ArrayList<>();
+            for (int k = 0; k < products.size(); k++) if ((used[k] >>> i & 1) != 0) mine.add(products.get(k));
+            sums[i] = AlgebraicSimplifier.termsToString(QuineMcCluskey.toTerms(mine, n), table);
+            steps.add("-> [Salida] " + outputs.get(i).name + " = " + sums[i]);
+        }
+        for (int k = 0; k < products.size(); k++) {
+            if (Integer.bitCount(used[k]) < 2) continue;
+            StringBuilder sb = new StringBuilder("-> [Compartido] ");
+            sb.append(AlgebraicSimplifier.termToString(QuineMcCluskey.toTerm(products.get(k), n), table)).append(" en ");
+            for (int i = 0, first = 1; i < outs; i++) {
+                if ((used[k] >>> i & 1) == 0) continue;
+                if (first == 0) sb.append(", ");
+                sb.append(outputs.get(i).name);
+                first = 0;
+            }
+            steps.add(sb.toString());
+        }
+
+        Result r = new Result(vars, outputs, products, used, sums, primes.size(), alone.size(), aloneInputs, steps);
+        steps.add("-> [Costo] " + products.size() + " productos (" + r.shared() + " compartidos), "
+                  + r.gateInputs() + " entradas de compuerta; por separado: "
+                  + alone.size() + " productos, " + aloneInputs + " entradas");
+        CalculatorMetrics.time("multisalida", t0);
+        CalculatorMetrics.rule("multisalida", alone.size(), products.size());
+        return r;
+    }
+
+    /* ---------------------------------------
+       Primos con etiqueta
+       --------------------------------------- */
+    private static List<Prime> primes(int n, long[][] on) {
+        // nivel 0: cada fila con la mascara de salidas donde vale 1
+        Map<QuineMcCluskey.Implicant, Integer> level = new HashMap<>();
+        for (int m = 0; m < 1 << n; m++) {
+            int tag = 0;
+            for (int i = 0; i < on.length; i++) if ((on[i][m >>> 6] >>> m & 1L) != 0) tag |= 1 << i;
+            if (tag != 0) level.put(new QuineMcCluskey.Implicant(m, 0), tag);
+        }
+        List<Prime> primes = new ArrayList<>();
+        while (!level.isEmpty()) {
+            if (Thread.currentThread().isInterrupted()) throw new CancellationException("Operacion cancelada");
+            Map<QuineMcCluskey.Implicant, Integer> next = new HashMap<>();
+            Map<QuineMcCluskey.Implicant, Boolean> covered = new HashMap<>();
+            for (Map.Entry<QuineMcCluskey.Implicant, Integer> e : level.entrySet()) {
+                QuineMcCluskey.Implicant a = e.getKey();
+                int ta = e.getValue();
+                for (int bit = 1; bit < 1 << n; bit <<= 1) {
+                    if ((a.dashes & bit) != 0 || (a.bits & bit) != 0) continue;
+                    QuineMcCluskey.Implicant b = new QuineMcCluskey.Implicant(a.bits | bit, a.dashes);
+                    Integer tb = level.get(b);
+                    if (tb == null) continue;
+                    int t = ta & tb;
+                    if (t == 0) continue;
+                    next.put(new QuineMcCluskey.Implicant(a.bits, a.dashes | bit), t);
+                    // solo deja de ser primo si el implicante mayor sirve a todas sus salidas
+                    if (t == ta) covered.put(a, Boolean.TRUE);
+                    if (t == tb) covered.put(b, Boolean.TRUE);
+                }
+            }
+            for (Map.Entry<QuineMcCluskey.Implicant, Integer> e : level.entrySet())
+                if (!covered.containsKey(e.getKey())) primes.add(new Prime(e.getKey(), e.getValue()));
+            level = next;
+        }
+        return primes;
+    }
+
+    /* ---------------------------------------
+       Cobertura: esenciales + voraz + irredundante por salida
+       --------------------------------------- */
+    private static int[] cover(int n, long[][] on, List<Prime> primes) {
+        int outs = on.length, p = primes.size();
+        long[][] need = new long[outs][];
+        for (int i = 0; i < outs; i++) need[i] = on[i].clone();
+        int[] usedBy = new int[p];
+
+        // pares (fila, salida) con un solo primo posible: ese primo es esencial para esa salida
+        int[][] count = new int[outs][1 << n], last = new int[outs][1 << n];
+        for (int k = 0; k < p; k++) {
+            Prime pr = primes.get(k);
+            for (int sub = pr.cube.dashes; ; sub = (sub - 1) & pr.cube.dashes) {
+                int m = pr.cube.bits | sub;
+                for (int t = pr.tag; t != 0; t &= t - 1) {
+                    int i = Integer.numberOfTrailingZeros(t);
+                    count[i][m]++;
+                    last[i][m] = k;
+                }
+                if (sub == 0) break;
+            }
+        }
+        for (int i = 0; i < outs; i++) {
+            for (int m = 0; m < 1 << n; m++) {
+                if (count[i][m] == 1 && (need[i][m >>> 6] >>> m & 1L) != 0) take(primes.get(last[i][m]), 1 << i, last[i][m], need, usedBy);
+            }
+        }
+
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) throw new CancellationException("Operacion cancelada");
+            int best = -1, bestMask = 0;
+            double bestScore = 0;
+            for (int k = 0; k < p; k++) {
+                Prime pr = primes.get(k);
+                int gain = 0, mask = 0;
+                for (int t = pr.tag; t != 0; t &= t - 1) {
+                    int i = Integer.numberOfTrailingZeros(t);
+                    int g = covers(pr.cube, need[i]);
+                    if (g > 0) { gain += g; mask |= 1 << i; }
+                }
+                if (gain == 0) continue;
+                int cost = Integer.bitCount(mask & ~usedBy[k]) + (usedBy[k] == 0 ? pr.cube.literals(n) : 0);
+                double score = (double) gain / Math.max(1, cost);
+                if (score > bestScore) { bestScore = score; best = k; bestMask = mask; }
+            }
+            if (best < 0) break;
+            take(primes.get(best), bestMask, best, need, usedBy);
+        }
+
+        // Irredundante: cada salida suelta los productos que otros de la misma salida ya cubren,
+        // empezando por los que usa menos gente (y, a igualdad, los de mas literales)
+        Integer[] order = new Integer[p];
+        for (int k = 0; k < p; k++) order[k] = k;
+        Arrays.sort(order, (x, y) -> {
+            int c = Integer.compare(Integer.bitCount(usedBy[x]), Integer.bitCount(usedBy[y]));
+            return c != 0 ? c : Integer.compare(primes.get(y).cube.literals(n), primes.get(x).cube.literals(n));
+        });
+        for (int i = 0; i < outs; i++) {
+            for (int k : order) {
+                if ((usedBy[k] >>> i & 1) == 0) continue;
+                usedBy[k] &= ~(1 << i);
+                if (!coveredBy(on[i], i, primes, usedBy)) usedBy[k] |= 1 << i;
+            }
+        }
+        return usedBy;
+    }
+
+    private static void take(Prime pr, int outputs, int k, long[][] need, int[] usedBy) {
+        usedBy[k] |= outputs;
+        for (int t = outputs; t != 0; t &= t - 1) {
+            long[] w = need[Integer.numberOfTrailingZeros(t)];
+            for (int sub = pr.cube.dashes; ; sub = (sub - 1) & pr.cube.dashes) {
+                int m = pr.cube.bits | sub;
+                w[m >>> 6] &= ~(1L << m);
+                if (sub == 0) break;
+            }
+        }
+    }
+
+    // Filas pendientes de {@code need} dentro del cubo
+    private static int covers(QuineMcCluskey.Implicant cube, long[] need) {
+        int c = 0;
+        for (int sub = cube.dashes; ; sub = (sub - 1) & cube.dashes) {
+            int m = cube.bits | sub;
+            if ((need[m >>> 6] >>> m & 1L) != 0) c++;
+            if (sub == 0) break;
+        }
+        return c;
+    }
+
+    private static boolean coveredBy(long[] on, int i, List<Prime> primes, int[] usedBy) {
+        long[] left = on.clone();
+        for (int k = 0; k < primes.size(); k++) {
+            if ((usedBy[k] >>> i & 1) == 0) continue;
+            QuineMcCluskey.Implicant cube = primes.get(k).cube;
+            for (int sub = cube.dashes; ; sub = (sub - 1) & cube.dashes) {
+                int m = cube.bits | sub;
+                left[m >>> 6] &= ~(1L << m);
+                if (sub == 0) break;
+            }
+        }
+        for (long w : left) if (w != 0) return false;
+        return true;
+    }
+}
@@ -0,0 +1,394 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Formas normales de tamano polinomico, para cuando la distributiva explota:
+ * la CNF de Tseitin (lineal, con variables auxiliares), una forma factorizada
+ * multinivel y la DNF, que solo se calcula hasta AlgebraicSimplifier.dnfBudget()
+ * terminos. Pasado ese limite la simplificacion devuelve la forma factorizada;
+ * si esta tambien pasa de MAX_LITERALS (los subterminos compartidos se copian:
+ * una cadena de XOR crece como 2^n) la simplificacion falla con un aviso y la
+ * CNF de Tseitin queda solo en las formas normales.
+ */
+final class NormalForms {
+    /** Clausulas de la CNF que se escriben en los pasos. */
+    static final int SHOWN_CLAUSES = 64;
+    /** Literales maximos de la forma factorizada. */
+    static final int MAX_LITERALS = 50_000;
+
+    private NormalForms() { }
+
+    /** Expresion factorizada: texto, cantidad de literales y el mismo arbol como nodo. */
+    static final class Factored {
+        private static final int ATOM = 0, AND = 1, OR = 2;
+        final String text;
+        final int literals;
+        final AlgebraicSimplifier.Node node;   // en la fabrica de la entrada: se verifica sin volver a analizar el texto
+        private final int op;   // operador de la raiz, para saber si hace falta parentesis
+
+        private Factored(String text, int literals, int op, AlgebraicSimplifier.Node node) {
+            this.text = text;
+            this.literals = literals;
+            this.op = op;
+            this.node = node;
+        }
+
+        @Override public String toString() { return text; }
+    }
+
+    static final class Result {
+        final Tseitin.Cnf cnf;
+        /** Forma factorizada, o null si pasa de MAX_LITERALS literales. */
+        final Factored factored;
+        /** DNF, o null si paso el limite o hay mas de VarTable.MAX variables. */
+        final String dnf;
+        final int dnfTerms;
+        final List<String> steps;
+
+        Result(Tseitin.Cnf cnf, Factored factored, String dnf, int dnfTerms, List<String> steps) {
+            this.cnf = cnf;
+            this.factored = factored;
+            this.dnf = dnf;
+            this.dnfTerms = dnfTerms;
+            this.steps = steps;
+        }
+    }
+
+    /** Las tres formas de {@code raw}, avisando a {@code listener} de cada paso. */
+    static Result of(String raw, Consumer<String> listener) {
+        List<String> steps = new AlgebraicSimplifier.StepLog(listener);
+        steps.add("Expresion inicial: " + raw);
+        AlgebraicSimplifier.Node ast = AlgebraicSimplifier.parse(raw);
+
+        long t0 = CalculatorMetrics.start();
+        Tseitin.Cnf cnf = Tseitin.cnf(ast);
+        CalculatorMetrics.time("tseitin", t0);
+        steps.add("-> [CNF de Tseitin] " + cnf.clauses.size() + " clausulas, " + cnf.originalVars + " variables + "
+                  + cnf.auxiliaryVars() + " auxiliares: " + cnf.text(SHOWN_CLAUSES));
+
+        AlgebraicSimplifier.Node nnf = AlgebraicSimplifier.toNNF(ast);
+        Factored factored = factor(nnf);
+        String dnf = null;
+        int terms = 0;
+        Set<String> names = new HashSet<>();
+        for (AlgebraicSimplifier.Node x : AlgebraicSimplifier.postOrder(nnf)) {
+            if (x instanceof AlgebraicSimplifier.Var) names.add(((AlgebraicSimplifier.Var) x).name);
+        }
+        if (names.size() > AlgebraicSimplifier.VarTable.MAX) {
+            steps.add("-> [DNF] mas de " + AlgebraicSimplifier.VarTable.MAX + " variables");
+        } else {
+            AlgebraicSimplifier.VarTable vars = AlgebraicSimplifier.VarTable.of(nnf);
+            t0 = CalculatorMetrics.start();
+            try {
+                List<AlgebraicSimplifier.Term> sop = absorb(AlgebraicSimplifier.dnf(nnf, vars));
+                terms = sop.size();
+                dnf = AlgebraicSimplifier.termsToString(sop, vars);
+                steps.add("-> [DNF] " + terms + " terminos");
+                // la DNF factorizada puede salir mas chica que el arbol original
+                Factored f = factor(sop, vars);
+                if (f != null && (factored == null || f.literals < factored.literals)) factored = f;
+            } catch (AlgebraicSimplifier.DnfTooLargeException ex) {
+                steps.add("-> [DNF] " + ex.getMessage());
+            }
+            CalculatorMetrics.time("distributiva", t0);
+        }
+        if (factored != null) steps.add("-> [Forma factorizada] " + factored + " (" + factored.literals + " literales)");
+        else steps.add("-> [Forma factorizada] supera " + MAX_LITERALS + " literales: queda la CNF de Tseitin");
+        return new Result(cnf, factored, dnf, terms, steps);
+    }
+
+    /**
+     * Resultado de la simplificacion cuando la DNF pasa del limite: la forma
+     * factorizada de {@code nnf}, comprobada contra {@code nnf} con SAT. Si pasa
+     * de MAX_LITERALS no hay resultado equivalente de tamano razonable: la CNF
+     * de Tseitin solo es equisatisfacible, asi que no se devuelve como simplificacion.
+     */
+    static AlgebraicSimplifier.SimplifyResult fallback(AlgebraicSimplifier.Node nnf,
+                                                      AlgebraicSimplifier.DnfTooLargeException ex, List<String> steps) {
+        steps.add("-> [Distributiva] " + ex.getMessage() + ": se deja en forma factorizada");
+        Factored f = factor(nnf);
+        if (f == null) {
+            throw new RuntimeException("La forma factorizada supera " + MAX_LITERALS
+                                       + " literales: la expresion es demasiado grande para simplificar (ver Formas normales)");
+        }
+        steps.add("-> [Forma factorizada] " + f + " (" + f.literals + " literales)");
+        long t0 = CalculatorMetrics.start();
+        boolean same = Tseitin.counterexample(nnf, f.node) == null;
+        CalculatorMetrics.time("verificacion", t0);
+        if (!same) throw new IllegalStateException("La forma factorizada no es equivalente a la expresion inicial");
+        steps.add("-> [Verificacion] equivalente a la expresion inicial (SAT)");
+        return new AlgebraicSimplifier.SimplifyResult(steps, f.text, true);
+    }
+
+    // Absorcion S + S·X = S: ordenados por tamano, cada termino se compara con los ya guardados
+    private static List<AlgebraicSimplifier.Term> absorb(List<AlgebraicSimplifier.Term> terms) {
+        List<AlgebraicSimplifier.Term> sorted = new ArrayList<>(terms);
+        sorted.sort(Comparator.comparingInt(AlgebraicSimplifier.Term::size));
+        List<AlgebraicSimplifier.Term> out = new ArrayList<>();
+        next:
+        for (AlgebraicSimplifier.Term t : sorted) {
+            for (AlgebraicSimplifier.Term k : out) if (k.subsetOf(t)) continue next;
+            out.add(t);
+        }
+        return out;
+    }
+
+    /* ---------------------------------------
+       Factorizacion
+       --------------------------------------- */
+
+    /** Forma factorizada de un arbol en forma normal negada, sin pasar por la DNF; null si pasa de MAX_LITERALS. */
+    static Factored factor(AlgebraicSimplifier.Node nnf) {
+        long t0 = CalculatorMetrics.start();
+        try {
+            return new Factorer(nnf.owner).root(nnf);
+        } catch (Factorer.TooLarge ex) {
+            return null;
+        } finally {
+            CalculatorMetrics.time("factorizacion", t0);
+        }
+    }
+
+    /** Forma factorizada de una suma de productos; null si pasa de MAX_LITERALS. */
+    static Factored factor(List<AlgebraicSimplifier.Term> sop, AlgebraicSimplifier.VarTable vars) {
+        long t0 = CalculatorMetrics.start();
+        AlgebraicSimplifier.NodeFactory nf = new AlgebraicSimplifier.NodeFactory();
+        List<List<AlgebraicSimplifier.Node>> groups = new ArrayList<>(sop.size());
+        for (AlgebraicSimplifier.Term t : sop) {
+            List<AlgebraicSimplifier.Node> lits = new ArrayList<>(t.size());
+            for (long b = t.vars(); b != 0; b &= b - 1) {
+                int i = Long.numberOfTrailingZeros(b);
+                AlgebraicSimplifier.Node v = nf.var(vars.name(i));
+                lits.add((t.pos >>> i & 1L) != 0 ? v : nf.not(v));
+            }
+            groups.add(lits);
+        }
+        try {
+            return new Factorer(nf).groups(groups, false);
+        } catch (Factorer.TooLarge ex) {
+            return null;
+        } finally {
+            CalculatorMetrics.time("factorizacion", t0);
+        }
+    }
+
+    /**
+     * Factorizacion algebraica por literales sobre dos niveles: un operador
+     * externo aplicado a grupos, y el dual dentro de cada grupo. Se saca el
+     * item que aparece en mas grupos, x&P | x&Q = x & (P | Q) y, dual,
+     * (x|P) & (x|Q) = x | (P & Q); antes se descartan los grupos absorbidos
+     * (a | a&b = a, a & (a|b) = a). Los items compuestos se factorizan aparte,
+     * asi que de una CNF grande sale algo del tamano de la CNF y no 2^k productos.
+     */
+    private static final class Factorer {
+        /** La forma pasaria de MAX_LITERALS literales. */
+        static final class TooLarge extends RuntimeException {
+            private static final long serialVersionUID = 1L;
+            TooLarge() { super("La forma factorizada supera " + MAX_LITERALS + " literales", null, false, false); }
+        }
+
+        private final AlgebraicSimplifier.NodeFactory nf;
+        private final Factored one, zero;
+        private final Map<AlgebraicSimplifier.Node, Factored> memo = new IdentityHashMap<>();
+
+        Factorer(AlgebraicSimplifier.NodeFactory nf) {
+            this.nf = nf;
+            one = new Factored("1", 0, Factored.ATOM, nf.constant(true));
+            zero = new Factored("0", 0, Factored.ATOM, nf.constant(false));
+        }
+
+        /**
+         * node(n) sin recursion profunda: los items compuestos (And bajo Or y
+         * viceversa) se factorizan antes, en post-orden, asi que cada node()
+         * encuentra ya hechos los de abajo. Una cadena a&(b|(c&...)) no agota la pila.
+         */
+        Factored root(AlgebraicSimplifier.Node n) {
+            List<AlgebraicSimplifier.Node> order = AlgebraicSimplifier.postOrder(n);
+            Set<AlgebraicSimplifier.Node> items = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (AlgebraicSimplifier.Node x : order) {
+                if (x instanceof AlgebraicSimplifier.And) {
+                    if (((AlgebraicSimplifier.And) x).l instanceof AlgebraicSimplifier.Or) items.add(((AlgebraicSimplifier.And) x).l);
+                    if (((AlgebraicSimplifier.And) x).r instanceof AlgebraicSimplifier.Or) items.add(((AlgebraicSimplifier.And) x).r);
+                } else if (x instanceof AlgebraicSimplifier.Or) {
+                    if (((AlgebraicSimplifier.Or) x).l instanceof AlgebraicSimplifier.And) items.add(((AlgebraicSimplifier.Or) x).l);
+                    if (((AlgebraicSimplifier.Or) x).r instanceof AlgebraicSimplifier.And) items.add(((AlgebraicSimplifier.Or) x).r);
+                }
+            }
+            for (AlgebraicSimplifier.Node x : order) if (items.contains(x)) node(x);
+            return node(n);
+        }
+
+        Factored node(AlgebraicSimplifier.Node n) {
+            Factored f = memo.get(n);
+            if (f != null) return f;
+            if (n instanceof AlgebraicSimplifier.Const) {
+                f = ((AlgebraicSimplifier.Const) n).v ? one : zero;
+            } else if (n instanceof AlgebraicSimplifier.Var) {
+                f = new Factored(((AlgebraicSimplifier.Var) n).name, 1, Factored.ATOM, n);
+            } else if (n instanceof AlgebraicSimplifier.Not) {
+                f = new Factored("~" + node(((AlgebraicSimplifier.Not) n).x).text, 1, Factored.ATOM, n);   // en NNF, ~ solo va sobre variables
+            } else {
+                boolean and = n instanceof AlgebraicSimplifier.And;
+                List<List<AlgebraicSimplifier.Node>> groups = new ArrayList<>();
+                for (AlgebraicSimplifier.Node operand : flatten(n, and)) groups.add(flatten(operand, !and));
+                f = groups(groups, and);
+            }
+            memo.put(n, f);
+            return f;
+        }
+
+        // Operandos de una cadena del mismo operador, sin repetir (los nodos son unicos)
+        private static List<AlgebraicSimplifier.Node> flatten(AlgebraicSimplifier.Node n, boolean and) {
+            List<AlgebraicSimplifier.Node> out = new ArrayList<>();
+            Set<AlgebraicSimplifier.Node> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<AlgebraicSimplifier.Node> stack = new ArrayList<>();
+            stack.add(n);
+            while (!stack.isEmpty()) {
+                AlgebraicSimplifier.Node x = stack.remove(stack.size() - 1);
+                if (and && x instanceof AlgebraicSimplifier.And) {
+                    stack.add(((AlgebraicSimplifier.And) x).r);
+                    stack.add(((AlgebraicSimplifier.And) x).l);
+                } else if (!and && x instanceof AlgebraicSimplifier.Or) {
+                    stack.add(((AlgebraicSimplifier.Or) x).r);
+                    stack.add(((AlgebraicSimplifier.Or) x).l);
+                } else if (seen.add(x)) {
+                    out.add(x);
+                }
+            }
+            return out;
+        }
+
+        /** outerAnd: conjuncion de disyunciones (true) o disyuncion de conjunciones (false). */
+        Factored groups(List<List<AlgebraicSimplifier.Node>> in, boolean outerAnd) {
+            // un grupo que vale el absorbente interno (1 en una suma, 0 en un producto) es neutro
+            // para el operador externo; un grupo vacio vale el neutro interno, que anula todo
+            boolean absorbing = outerAnd;
+            List<Set<AlgebraicSimplifier.Node>> groups = new ArrayList<>(in.size());
+            for (List<AlgebraicSimplifier.Node> g : in) {
+                Set<AlgebraicSimplifier.Node> items = new LinkedHashSet<>();
+                boolean constant = false;
+                for (AlgebraicSimplifier.Node x : g) {
+                    if (x instanceof AlgebraicSimplifier.Const) {
+                        if (((AlgebraicSimplifier.Const) x).v == absorbing) { constant = true; break; }
+                        continue;
+                    }
+                    AlgebraicSimplifier.Node opposite = x instanceof AlgebraicSimplifier.Not ? ((AlgebraicSimplifier.Not) x).x : x.owner.not(x);
+                    if (items.contains(opposite)) { constant = true; break; }   // x & ~x = 0, x | ~x = 1
+                    items.add(x);
+                }
+                if (constant) continue;
+                if (items.isEmpty()) return outerAnd ? zero : one;
+                groups.add(items);
+            }
+            if (groups.isEmpty()) return outerAnd ? one : zero;
+            groups = absorb(groups);   // quitar grupos no crea absorciones nuevas: basta una vez
+
+            List<Factored> parts = new ArrayList<>();
+            while (!groups.isEmpty()) {
+                AlgebraicSimplifier.Node best = mostShared(groups);
+                if (best == null) {
+                    for (Set<AlgebraicSimplifier.Node> g : groups) parts.add(join(items(g), !outerAnd));
+                    break;
+                }
+                // junto con best salen los items que estan en todos sus grupos: es lo que
+                // sacaria la recursion uno por uno, sin un nivel de pila por cada uno
+                Set<AlgebraicSimplifier.Node> common = null;
+                List<Set<AlgebraicSimplifier.Node>> rest = new ArrayList<>();
+                for (Set<AlgebraicSimplifier.Node> g : groups) {
+                    if (!g.contains(best)) rest.add(g);
+                    else if (common == null) common = new LinkedHashSet<>(g);
+                    else common.retainAll(g);
+                }
+                List<List<AlgebraicSimplifier.Node>> quotient = new ArrayList<>();
+                for (Set<AlgebraicSimplifier.Node> g : groups) {
+                    if (!g.contains(best)) continue;
+                    List<AlgebraicSimplifier.Node> q = new ArrayList<>(g);
+                    q.removeAll(common);
+                    quotient.add(q);
+                }
+                List<Factored> term = new ArrayList<>();
+                term.add(node(best));
+                for (AlgebraicSimplifier.Node x : common) if (x != best) term.add(node(x));
+                term.add(groups(quotient, outerAnd));
+                parts.add(join(term, !outerAnd));
+                groups = rest;
+            }
+            return join(parts, outerAnd);
+        }
+
+        private List<Factored> items(Set<AlgebraicSimplifier.Node> g) {
+            List<Factored> out = new ArrayList<>(g.size());
+            for (AlgebraicSimplifier.Node x : g) out.add(node(x));
+            return out;
+        }
+
+        // Descarta los grupos que contienen a otro (y los repetidos)
+        private static List<Set<AlgebraicSimplifier.Node>> absorb(List<Set<AlgebraicSimplifier.Node>> groups) {
+            List<Set<AlgebraicSimplifier.Node>> sorted = new ArrayList<>(groups);
+            sorted.sort(Comparator.comparingInt(Set::size));
+            List<Set<AlgebraicSimplifier.Node>> kept = new ArrayList<>();
+            Set<Set<AlgebraicSimplifier.Node>> seen = new HashSet<>();
+            for (Set<AlgebraicSimplifier.Node> g : sorted) {
+                if (!seen.add(g)) continue;
+                boolean absorbed = false;
+                for (Set<AlgebraicSimplifier.Node> k : kept) {
+                    if (k.size() < g.size() && g.containsAll(k)) { absorbed = true; break; }
+                }
+                if (!absorbed) kept.add(g);
+            }
+            // se conserva el orden original para que el texto siga a la entrada
+            List<Set<AlgebraicSimplifier.Node>> out = new ArrayList<>(kept.size());
+            Set<Set<AlgebraicSimplifier.Node>> keep = Collections.newSetFromMap(new IdentityHashMap<>());
+            keep.addAll(kept);
+            for (Set<AlgebraicSimplifier.Node> g : groups) if (keep.remove(g)) out.add(g);
+            return out;
+        }
+
+        // Item presente en mas grupos (al menos dos); a igualdad, el primero que aparece
+        private static AlgebraicSimplifier.Node mostShared(List<Set<AlgebraicSimplifier.Node>> groups) {
+            Map<AlgebraicSimplifier.Node, Integer> count = new LinkedHashMap<>();
+            for (Set<AlgebraicSimplifier.Node> g : groups) for (AlgebraicSimplifier.Node x : g) count.merge(x, 1, Integer::sum);
+            AlgebraicSimplifier.Node best = null;
+            int max = 1;
+            for (Map.Entry<AlgebraicSimplifier.Node, Integer> e : count.entrySet()) {
+                if (e.getValue() > max) { max = e.getValue(); best = e.getKey(); }
+            }
+            return best;
+        }
+
+        private Factored join(List<Factored> parts, boolean and) {
+            int op = and ? Factored.AND : Factored.OR;
+            List<Factored> kept = new ArrayList<>(parts.size());
+            long literals = 0;
+            for (Factored p : parts) {
+                if (p == (and ? one : zero)) continue;             // neutro
+                if (p == (and ? zero : one)) return p;             // absorbente
+                kept.add(p);
+                literals += p.literals;
+            }
+            if (kept.isEmpty()) return and ? one : zero;
+            if (kept.size() == 1) return kept.get(0);
+            if (literals > MAX_LITERALS) throw new TooLarge();   // antes de armar el texto
+            StringBuilder sb = new StringBuilder();
+            AlgebraicSimplifier.Node node = null;
+            for (Factored p : kept) {
+                if (sb.length() > 0) sb.append(and ? " & " : " | ");
+                boolean wrap = p.op != Factored.ATOM && p.op != op;
+                if (wrap) sb.append('(');
+                sb.append(p.text);
+                if (wrap) sb.append(')');
+                node = node == null ? p.node : and ? nf.and(node, p.node) : nf.or(node, p.node);
+            }
+            return new Factored(sb.toString(), (int) literals, op, node);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Minimizacion exacta en dos niveles (Quine–McCluskey + cobertura minima).
+ *
+ * Un implicante es un par de enteros (bits, guiones): las posiciones marcadas en
+ * {@code dashes} no importan y el resto debe coincidir con {@code bits}. El bit
+ * (n-1-j) corresponde a la variable j, igual que las filas de la tabla de verdad.
+ * Los implicantes primos se obtienen combinando grupos con igual numero de unos;
+ * la cobertura se resuelve con esenciales y ramificacion y acotamiento (Petrick
+ * exacto), minimizando primero el numero de terminos y luego el de literales.
+ */
+final class QuineMcCluskey {
+    /** Limite de variables para el metodo exacto (2^16 minterminos). */
+    static final int MAX_VARS = 16;
+    /** Trabajo de busqueda (nodos x tamano de la tabla) antes de aceptar la mejor cobertura hallada. */
+    static final long SEARCH_BUDGET = 200_000_000L;
+
+    static final class Implicant {
+        final int bits, dashes;
+        Implicant(int bits, int dashes) { this.bits = bits; this.dashes = dashes; }
+        boolean covers(int minterm) { return (minterm & ~dashes) == bits; }
+        int literals(int numVars) { return numVars - Integer.bitCount(dashes); }
+        @Override public boolean equals(Object o) {
+            return o instanceof Implicant && ((Implicant) o).bits == bits && ((Implicant) o).dashes == dashes;
+        }
+        @Override public int hashCode() { return bits * 31 + dashes; }
+    }
+
+    static final class Result {
+        final List<Implicant> primes;
+        final List<Implicant> essentials;
+        final List<Implicant> cover;
+        final boolean exact;       // false si se agoto el presupuesto de busqueda
+        Result(List<Implicant> primes, List<Implicant> essentials, List<Implicant> cover, boolean exact) {
+            this.primes = primes; this.essentials = essentials; this.cover = cover; this.exact = exact;
+        }
+    }
+
+    private QuineMcCluskey() { }
+
+    /** Minimiza la funcion con ON-set {@code on} y conjunto de indiferencias {@code dc} (puede ser vacio). */
+    static Result minimize(int numVars, int[] on, int[] dc) {
+        if (numVars > MAX_VARS) throw new RuntimeException("Quine-McCluskey admite hasta " + MAX_VARS + " variables");
+        List<Implicant> primes = primeImplicants(numVars, on, dc);
+        return cover(numVars, primes, on);
+    }
+
+    /* ---------------------------------------
+       Implicantes primos
+       --------------------------------------- */
+    static List<Implicant> primeImplicants(int numVars, int[] on, int[] dc) {
+        // grupos por cantidad de unos; cada nivel del bucle agrega un guion
+        List<List<Implicant>> groups = new ArrayList<>();
+        for (int g = 0; g <= numVars; g++) groups.add(new ArrayList<>());
+        Set<Integer> seenMinterms = new HashSet<>();
+        for (int[] set : new int[][]{ on, dc }) {
+            for (int m : set) if (seenMinterms.add(m)) groups.get(Integer.bitCount(m)).add(new Implicant(m, 0));
+        }
+
+        List<Implicant> primes = new ArrayList<>();
+        while (true) {
+            List<List<Implicant>> next = new ArrayList<>();
+            for (int g = 0; g <= numVars; g++) next.add(new ArrayList<>());
+            Set<Implicant> produced = new HashSet<>();
+            Set<Implicant> combined = new HashSet<>();
+            boolean any = false;
+            for (int g = 0; g < numVars; g++) {
+                // en vez de comparar todos los pares, se busca el vecino con un uno mas
+                Set<Implicant> upper = new HashSet<>(groups.get(g + 1));
+                for (Implicant a : groups.get(g)) {
+                    for (int bit = 0; bit < numVars; bit++) {
+                        int diff = 1 << bit;
+                        if (((a.bits | a.dashes) & diff) != 0) continue;
+                        Implicant b = new Implicant(a.bits | diff, a.dashes);
+                        if (!upper.contains(b)) continue;
+                        Implicant c = new Implicant(a.bits, a.dashes | diff);
+                        combined.add(a);
+                        combined.add(b);
+                        any = true;
+                        if (produced.add(c)) next.get(Integer.bitCount(c.bits)).add(c);
+                    }
+                }
+            }
+            for (List<Implicant> group : groups)
+                for (Implicant i : group) if (!combined.contains(i)) primes.add(i);
+            if (!any) break;
+            groups = next;
+        }
+        primes.sort(Comparator.comparingInt((Implicant i) -> i.literals(numVars)).thenComparingInt(i -> i.bits));
+        return primes;
+    }
+
+    /* ---------------------------------------
+       Cobertura: esenciales + busqueda exacta
+       --------------------------------------- */
+    static Result cover(int numVars, List<Implicant> primes, int[] on) {
+        int p = primes.size();
+        int m = on.length;
+        // covers[i] = minterminos (indices en on) del primo i; coveredBy[k] = primos que cubren on[k]
+        Map<Integer, Integer> index = new HashMap<>();
+        for (int k = 0; k < m; k++) index.put(on[k], k);
+        int[][] covers = new int[p][];
+        int[] degree = new int[m];
+        for (int i = 0; i < p; i++) {
+            Implicant imp = primes.get(i);
+            int[] tmp = new int[1 << Integer.bitCount(imp.dashes)];
+            int n = 0;
+            // recorre los subconjuntos de los guiones
+            for (int sub = imp.dashes; ; sub = (sub - 1) & imp.dashes) {
+                Integer k = index.get(imp.bits | sub);
+                if (k != null) { tmp[n++] = k; degree[k]++; }
+                if (sub == 0) break;
+            }
+            covers[i] = Arrays.copyOf(tmp, n);
+        }
+        int[][] coveredBy = new int[m][];
+        for (int k = 0; k < m; k++) coveredBy[k] = new int[degree[k]];
+        int[] fill = new int[m];
+        for (int i = 0; i < p; i++) for (int k : covers[i]) coveredBy[k][fill[k]++] = i;
+
+        Search s = new Search(numVars, primes, coveredBy, covers);
+        List<Implicant> essentials = new ArrayList<>();
+        for (int k = 0; k < m; k++) {
+            if (coveredBy[k].length == 1 && !s.chosen[coveredBy[k][0]]) {
+                int i = coveredBy[k][0];
+                s.choose(i);
+                essentials.add(primes.get(i));
+            }
+        }
+        s.greedyBound();
+        s.run(essentials.size(), literalCost(numVars, primes, s.chosen));
+
+        List<Implicant> cover = new ArrayList<>();
+        for (int i = 0; i < p; i++) if (s.best[i]) cover.add(primes.get(i));
+        return new Result(primes, essentials, cover, !s.exhausted);
+    }
+
+    private static int literalCost(int numVars, List<Implicant> primes, boolean[] chosen) {
+        int c = 0;
+        for (int i = 0; i < chosen.length; i++) if (chosen[i]) c += primes.get(i).literals(numVars);
+        return c;
+    }
+
+    /**
+     * Ramificacion y acotamiento (Petrick exacto) sobre el mintermino con menos
+     * candidatos. La cota inferior es un conjunto de minterminos sin primos en
+     * comun: cada uno exige un termino distinto. Empieza con la cobertura voraz.
+     */
+    private static final class Search {
+        final int numVars;
+        final List<Implicant> primes;
+        final int[][] coveredBy, covers;
+        final boolean[] chosen;
+        final int[] coverCount;      // primos elegidos que cubren cada mintermino
+        final int[] stamp;           // marcas para la cota inferior
+        int uncovered, stampGen;
+        boolean[] best;
+        int bestTerms = Integer.MAX_VALUE, bestLits = Integer.MAX_VALUE;
+        long nodes;
+        boolean exhausted;
+
+        Search(int numVars, List<Implicant> primes, int[][] coveredBy, int[][] covers) {
+            this.numVars = numVars; this.primes = primes; this.coveredBy = coveredBy; this.covers = covers;
+            this.chosen = new boolean[primes.size()];
+            this.coverCount = new int[coveredBy.length];
+            this.stamp = new int[primes.size()];
+            this.uncovered = coveredBy.length;
+        }
+
+        void choose(int i) {
+            chosen[i] = true;
+            for (int k : covers[i]) if (coverCount[k]++ == 0) uncovered--;
+        }
+
+        void unchoose(int i) {
+            chosen[i] = false;
+            for (int k : covers[i]) if (--coverCount[k] == 0) uncovered++;
+        }
+
+        /** Cobertura voraz: el primo que cubre mas minterminos pendientes (menos literales en empate). */
+        void greedyBound() {
+            int[] gain = new int[chosen.length];
+            for (int i = 0; i < gain.length; i++)
+                for (int k : covers[i]) if (coverCount[k] == 0) gain[i]++;
+            List<Integer> added = new ArrayList<>();
+            while (uncovered > 0) {
+                int pick = -1;
+                for (int i = 0; i < chosen.length; i++) {
+                    if (chosen[i] || gain[i] == 0) continue;
+                    if (pick < 0 || gain[i] > gain[pick]
+                            || (gain[i] == gain[pick] && primes.get(i).literals(numVars) < primes.get(pick).literals(numVars))) pick = i;
+                }
+                for (int k : covers[pick]) if (coverCount[k] == 0) for (int i : coveredBy[k]) gain[i]--;
+                choose(pick);
+                added.add(pick);
+            }
+            best = chosen.clone();
+            bestTerms = 0;
+            for (boolean c : best) if (c) bestTerms++;
+            bestLits = literalCost(numVars, primes, best);
+            for (int i : added) unchoose(i);
+        }
+
+        private int lowerBound() {
+            stampGen++;
+            int lb = 0;
+            for (int k = 0; k < coveredBy.length; k++) {
+                if (coverCount[k] != 0) continue;
+                boolean free = true;
+                for (int i : coveredBy[k]) if (stamp[i] == stampGen) { free = false; break; }
+                if (!free) continue;
+                lb++;
+                for (int i : coveredBy[k]) stamp[i] = stampGen;
+            }
+            return lb;
+        }
+
+        void run(int terms, int lits) {
+            if (uncovered == 0) {
+                if (terms < bestTerms || (terms == bestTerms && lits < bestLits)) {
+                    best = chosen.clone();
+                    bestTerms = terms;
+                    bestLits = lits;
+                }
+                return;
+            }
+            if (++nodes * (coveredBy.length + chosen.length) > SEARCH_BUDGET) { exhausted = true; return; }
+            if ((nodes & 0xFFF) == 0 && Thread.currentThread().isInterrupted())
+                throw new CancellationException("Operacion cancelada");
+            int lb = terms + lowerBound();
+            if (lb > bestTerms || (lb == bestTerms && lits >= bestLits)) return;
+
+            int pick = -1, options = Integer.MAX_VALUE;
+            for (int k = 0; k < coveredBy.length; k++) {
+                if (coverCount[k] != 0) continue;
+                if (coveredBy[k].length < options) { pick = k; options = coveredBy[k].length; }
+            }
+            // primos mas grandes primero: encuentran buenas cotas antes
+            Integer[] order = new Integer[options];
+            for (int t = 0; t < options; t++) order[t] = coveredBy[pick][t];
+            Arrays.sort(order, Comparator.comparingInt(i -> primes.get(i).literals(numVars)));
+            for (int i : order) {
+                choose(i);
+                run(terms + 1, lits + primes.get(i).literals(numVars));
+                unchoose(i);
+                if (exhausted) return;
+            }
+        }
+    }
+
+    /* ---------------------------------------
+       Conversion a terminos del simplificador
+       --------------------------------------- */
+    /** Termino equivalente: la variable j (bit n-1-j del implicante) es el bit j del termino. */
+    static AlgebraicSimplifier.Term toTerm(Implicant imp, int numVars) {
+        long pos = 0, neg = 0;
+        for (int j = 0; j < numVars; j++) {
+            int bit = 1 << (numVars - 1 - j);
+            if ((imp.dashes & bit) != 0) continue;
+            if ((imp.bits & bit) != 0) pos |= 1L << j; else neg |= 1L << j;
+        }
+        return new AlgebraicSimplifier.Term(pos, neg);
+    }
+
+    static List<AlgebraicSimplifier.Term> toTerms(List<Implicant> imps, int numVars) {
+        List<AlgebraicSimplifier.Term> out = new ArrayList<>();
+        for (Implicant i : imps) out.add(toTerm(i, numVars));
+        return out;
+    }
+
+    /** Lista compacta de minterminos para los pasos: m(0,3,5,...) */
+    static String mintermList(int[] ms, int max) {
+        StringBuilder sb = new StringBuilder("m(");
+        for (int i = 0; i < ms.length && i < max; i++) { if (i > 0) sb.append(','); sb.append(ms[i]); }
+        if (ms.length > max) sb.append(",... ").append(ms.length).append(" en total");
+        return sb.append(')').toString();
+    }
+}
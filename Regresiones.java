@@ -0,0 +1,140 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Comprobaciones de regresion sin dependencias externas.
+ *
+ *   java Regresiones
+ *
+ * Cada caso corre aislado (un StackOverflowError o un OutOfMemoryError cuenta
+ * como falla y no corta los demas); el proceso termina con codigo 1 si alguno falla.
+ */
+final class Regresiones {
+    private static int failures;
+
+    interface Case { boolean run() throws Exception; }
+
+    public static void main(String[] args) {
+        check("parser/parentesis-20000", () -> {
+            String e = repeat("(", 20000) + "A" + repeat(")", 20000);
+            return new BooleanExpression(e).getOrderedVariables().size() == 1
+                && AlgebraicSimplifier.parse(e) instanceof AlgebraicSimplifier.Var;
+        });
+        check("parser/operando-faltante-20000", () -> {
+            try {
+                AlgebraicSimplifier.parse(repeat("(", 20000) + "A|" + repeat(")", 20000));
+                return false;
+            } catch (RuntimeException ex) {
+                return ex.getMessage().startsWith("Sintaxis invalida");
+            }
+        });
+        check("encabezado/identificadores", () ->
+            ExpressionParser.tokenize("notA and door -> x17 OR clk").display().equals("notA & door > x17 | clk"));
+        check("indiferencias/constante-o-lista", () ->
+            DontCares.parse("1").expression != null && DontCares.parse("0").expression != null
+                && Arrays.equals(DontCares.parse("m(1)").minterms, new int[]{ 1 })
+                && Arrays.equals(DontCares.parse("5, 1").minterms, new int[]{ 1, 5 }));
+        check("indiferencias/lista-31-variables", () -> {
+            try {
+                AlgebraicSimplifier.simplifyPretty(chain("|", 31), DontCares.parse("m(1,2)"), AlgebraicSimplifier.Mode.ESPRESSO, null);
+                return false;
+            } catch (RuntimeException ex) {
+                return ex.getMessage().startsWith("Una lista de minterminos admite hasta " + TruthColumn.MAX_VARS);
+            }
+        });
+        check("tseitin/cadena-or-6000", () -> {
+            AlgebraicSimplifier.Node n = AlgebraicSimplifier.parse(chain("|", 6000));
+            return Tseitin.classify(n) == Tseitin.Kind.CONTINGENCIA;
+        });
+        check("tseitin/cadena-and-6000-contradiccion", () -> {
+            AlgebraicSimplifier.Node n = AlgebraicSimplifier.parse(chain("&", 6000) + " & ~x3000");
+            return Tseitin.classify(n) == Tseitin.Kind.CONTRADICCION;
+        });
+        check("bdd/cadena-or-6000", () -> {
+            AlgebraicSimplifier.Node n = AlgebraicSimplifier.parse(chain("|", 6000));
+            List<String> order = Bdd.order(Bdd.Ordering.APARICION, n);
+            Collections.reverse(order);   // la ultima variable arriba: el diagrama queda lineal
+            Bdd bdd = new Bdd(order);
+            int root = bdd.build(n);
+            return root != Bdd.FALSE && root != Bdd.TRUE && bdd.nodeCount(root) == 6002;   // un nodo por variable mas las hojas
+        });
+        check("verificador/cadena-or-6000", () -> {
+            String e = chain("|", 6000);
+            BooleanExpression be = new BooleanExpression(e);
+            return Verifier.classify(e, be.getProgram(), be.getOrderedVariables(), null).kind == Tseitin.Kind.CONTINGENCIA;
+        });
+        check("verificador/or-anidado-20000", () -> {
+            // x1 | (x2 | (...)): el BDD es lineal pero ite baja un nivel por variable al negarlo
+            StringBuilder sb = new StringBuilder();
+            for (int i = 1; i < 20000; i++) sb.append('x').append(i).append("|(");
+            String e = sb.append("x20000").append(repeat(")", 19999)).toString();
+            BooleanExpression be = new BooleanExpression(e);
+            Verifier.Classification c = Verifier.classify(e, be.getProgram(), be.getOrderedVariables(), null);
+            return c.kind == Tseitin.Kind.CONTINGENCIA && c.engine.startsWith("BDD");
+        });
+        check("nnf/cadena-negada-20000", () -> {
+            AlgebraicSimplifier.Node n = AlgebraicSimplifier.parse("~(" + chain("|", 20000) + ")");
+            return AlgebraicSimplifier.toNNF(n) instanceof AlgebraicSimplifier.And;
+        });
+        check("nnf/registro-xor-24", () -> {
+            AlgebraicSimplifier.Node n = AlgebraicSimplifier.toNNF(AlgebraicSimplifier.parse("~(" + chain("^", 24) + ")"));
+            return AlgebraicSimplifier.toString(n, AlgebraicSimplifier.STEP_CHARS).length() <= AlgebraicSimplifier.STEP_CHARS + 4;
+        });
+        check("formas/xor-24", () -> {
+            NormalForms.Result r = NormalForms.of(chain("^", 24), null);
+            return r.factored == null && r.dnf == null && r.cnf.clauses.size() < 1000;
+        });
+        for (AlgebraicSimplifier.Mode mode : new AlgebraicSimplifier.Mode[]{ AlgebraicSimplifier.Mode.ALGEBRAICO, AlgebraicSimplifier.Mode.ESPRESSO }) {
+            check("simplificacion/xor-24-" + mode.name().toLowerCase(Locale.ROOT), () -> {
+                try {
+                    AlgebraicSimplifier.simplifyPretty(chain("^", 24), mode);
+                    return false;
+                } catch (RuntimeException ex) {
+                    return ex.getMessage().startsWith("La forma factorizada supera " + NormalForms.MAX_LITERALS);
+                }
+            });
+        }
+        check("formas/cadena-or-6000", () -> NormalForms.of(chain("|", 6000), null).factored.literals == 6000);
+        check("formas/anidada-6000", () -> NormalForms.of(nested(6000), null).factored.literals == 6000);
+
+        if (failures > 0) {
+            System.out.println(failures + " casos fallaron");
+            System.exit(1);
+        }
+        System.out.println("todos los casos pasan");
+    }
+
+    /** x1 op x2 op ... op xn, asociado a la izquierda por el parser. */
+    static String chain(String op, int n) {
+        StringBuilder sb = new StringBuilder("x1");
+        for (int i = 2; i <= n; i++) sb.append(op).append('x').append(i);
+        return sb.toString();
+    }
+
+    /** x1 | (x2 & (x3 | (x4 & ... xn))), alternando los operadores en cada nivel. */
+    static String nested(int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i < n; i++) sb.append('x').append(i).append(i % 2 == 1 ? " | (" : " & (");
+        return sb.append('x').append(n).append(repeat(")", n - 1)).toString();
+    }
+
+    static String repeat(String s, int n) {
+        StringBuilder sb = new StringBuilder(s.length() * n);
+        for (int i = 0; i < n; i++) sb.append(s);
+        return sb.toString();
+    }
+
+    private static void check(String name, Case c) {
+        long t0 = System.nanoTime();
+        String outcome;
+        try {
+            outcome = c.run() ? "ok" : "FALLA";
+        } catch (Throwable t) {
+            outcome = "FALLA (" + t + ")";
+        }
+        if (!outcome.equals("ok")) failures++;
+        System.out.printf(Locale.ROOT, "%-44s %-6s %8.1f ms%n", name, outcome, (System.nanoTime() - t0) / 1e6);
+    }
+}
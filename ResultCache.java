@@ -0,0 +1,101 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache LRU acotado por peso (entradas, palabras de columna...), compartido
+ * entre hilos. El calculo de un valor ausente se hace fuera del candado: dos
+ * hilos pueden calcular la misma clave a la vez, y gana el ultimo en guardar.
+ * Los fallos y excepciones no se guardan.
+ */
+final class ResultCache<K, V> {
+    private static final List<ResultCache<?, ?>> ALL = new ArrayList<>();
+
+    private final String name;
+    private final long capacity;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<K, V> map = new LinkedHashMap<>(64, 0.75f, true);   // orden de acceso
+    private long weight, hits, misses, evictions;
+
+    /** Cache de hasta {@code capacity} entradas. */
+    ResultCache(String name, long capacity) {
+        this(name, capacity, v -> 1);
+    }
+
+    /** Cache de hasta {@code capacity} unidades de peso; un valor mas pesado que todo el cache no se guarda. */
+    ResultCache(String name, long capacity, ToLongFunction<V> weigher) {
+        this.name = name;
+        this.capacity = capacity;
+        this.weigher = weigher;
+        synchronized (ALL) { ALL.add(this); }
+    }
+
+    synchronized V get(K key) {
+        V v = map.get(key);
+        if (v != null) hits++;
+        else misses++;
+        return v;
+    }
+
+    synchronized void put(K key, V value) {
+        long w = weigher.applyAsLong(value);
+        if (w > capacity) return;
+        V old = map.put(key, value);
+        if (old != null) weight -= weigher.applyAsLong(old);
+        weight += w;
+        // desaloja las menos usadas recientemente
+        for (Iterator<Map.Entry<K, V>> it = map.entrySet().iterator(); weight > capacity && it.hasNext(); ) {
+            Map.Entry<K, V> e = it.next();
+            if (e.getKey().equals(key)) continue;
+            weight -= weigher.applyAsLong(e.getValue());
+            it.remove();
+            evictions++;
+        }
+    }
+
+    V computeIfAbsent(K key, Supplier<V> compute) {
+        V v = get(key);
+        if (v == null) {
+            v = compute.get();
+            put(key, v);
+        }
+        return v;
+    }
+
+    synchronized void clear() {
+        map.clear();
+        weight = 0;
+    }
+
+    synchronized long hits() { return hits; }
+    synchronized long misses() { return misses; }
+    synchronized long evictions() { return evictions; }
+    synchronized int size() { return map.size(); }
+
+    synchronized String stats() {
+        long total = hits + misses;
+        return String.format(Locale.ROOT, "%s: %d aciertos, %d fallos (%.1f%%), %d desalojos, %d entradas, peso %d/%d",
+                name, hits, misses, total == 0 ? 0.0 : 100.0 * hits / total, evictions, map.size(), weight, capacity);
+    }
+
+    /** Vacia todos los caches (los contadores se conservan). */
+    static void clearAll() {
+        synchronized (ALL) {
+            for (ResultCache<?, ?> c : ALL) c.clear();
+        }
+    }
+
+    /** Estadisticas de todos los caches creados, una linea por cache. */
+    static String summary() {
+        StringBuilder sb = new StringBuilder();
+        synchronized (ALL) {
+            for (ResultCache<?, ?> c : ALL) sb.append(c.stats()).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,327 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Resolutor SAT con aprendizaje de clausulas por conflicto (CDCL).
+ *
+ * Literales: la variable v (desde 0) da el literal positivo 2v y el negativo 2v+1.
+ * Incluye dos literales vigilados por clausula, aprendizaje 1UIP con retroceso
+ * no cronologico, heuristica VSIDS, guardado de fase y reinicios de Luby.
+ * Cada instancia resuelve una sola consulta: se agregan las clausulas y luego solve().
+ */
+final class SatSolver {
+    private static final int RESTART_BASE = 100;
+    private static final double VAR_DECAY = 0.95;
+
+    private int numVars;
+    private final List<int[]> clauses = new ArrayList<>();
+    private IntList[] watches = new IntList[0];   // por literal: clausulas que lo vigilan
+    private byte[] assign = new byte[0];          // 0 = sin valor, 1 = verdadero, -1 = falso
+    private int[] level = new int[0];
+    private int[] reason = new int[0];            // clausula que implico la variable, -1 si es decision
+    private boolean[] phase = new boolean[0];
+    private boolean[] seen = new boolean[0];
+    private double[] activity = new double[0];
+    private double varInc = 1.0;
+    private final VarHeap order = new VarHeap();
+
+    private int[] trail = new int[16];
+    private int trailSize, qhead;
+    private final IntList trailLim = new IntList();
+    private boolean unsat;
+
+    private long conflicts, decisions, propagations, learned;
+
+    int newVar() {
+        int v = numVars++;
+        if (v >= assign.length) grow(Math.max(16, v * 2));
+        reason[v] = -1;
+        watches[2 * v] = new IntList();
+        watches[2 * v + 1] = new IntList();
+        order.insert(v);
+        return v;
+    }
+
+    int numVars() { return numVars; }
+    int numClauses() { return clauses.size(); }
+    long conflicts() { return conflicts; }
+    long decisions() { return decisions; }
+    long propagations() { return propagations; }
+    long learnedClauses() { return learned; }
+
+    static int lit(int var, boolean positive) { return 2 * var + (positive ? 0 : 1); }
+
+    private void grow(int cap) {
+        watches  = Arrays.copyOf(watches, 2 * cap);
+        assign   = Arrays.copyOf(assign, cap);
+        level    = Arrays.copyOf(level, cap);
+        reason   = Arrays.copyOf(reason, cap);
+        phase    = Arrays.copyOf(phase, cap);
+        seen     = Arrays.copyOf(seen, cap);
+        activity = Arrays.copyOf(activity, cap);
+        if (trail.length < cap) trail = Arrays.copyOf(trail, cap);
+    }
+
+    private int value(int lit) {
+        int a = assign[lit >> 1];
+        return (lit & 1) == 0 ? a : -a;
+    }
+
+    /** Agrega una clausula (solo antes de solve). Los literales repetidos se eliminan. */
+    void addClause(int... lits) {
+        if (unsat) return;
+        int[] c = lits.clone();
+        Arrays.sort(c);
+        int n = 0;
+        for (int i = 0; i < c.length; i++) {
+            if (i > 0 && c[i] == c[i - 1]) continue;
+            if (i > 0 && c[i] == (c[i - 1] ^ 1)) return;       // x | ~x: siempre verdadera
+            int v = value(c[i]);
+            if (v == 1) return;                                  // ya satisfecha en el nivel 0
+            if (v == -1) continue;                               // literal falso en el nivel 0
+            c[n++] = c[i];
+        }
+        if (n == 0) { unsat = true; return; }
+        if (n == 1) {
+            enqueue(c[0], -1);
+            if (propagate() >= 0) unsat = true;
+            return;
+        }
+        attach(Arrays.copyOf(c, n));
+    }
+
+    private int attach(int[] c) {
+        int ci = clauses.size();
+        clauses.add(c);
+        watches[c[0]].add(ci);
+        watches[c[1]].add(ci);
+        return ci;
+    }
+
+    private void enqueue(int lit, int from) {
+        int v = lit >> 1;
+        assign[v] = (byte) ((lit & 1) == 0 ? 1 : -1);
+        level[v] = decisionLevel();
+        reason[v] = from;
+        trail[trailSize++] = lit;
+    }
+
+    private int decisionLevel() { return trailLim.size; }
+
+    /** Propagacion unitaria. Devuelve la clausula en conflicto o -1. */
+    private int propagate() {
+        while (qhead < trailSize) {
+            int falseLit = trail[qhead++] ^ 1;
+            IntList ws = watches[falseLit];
+            int i = 0, j = 0;
+            while (i < ws.size) {
+                int ci = ws.data[i++];
+                int[] c = clauses.get(ci);
+                if (c[0] == falseLit) { c[0] = c[1]; c[1] = falseLit; }
+                if (value(c[0]) == 1) { ws.data[j++] = ci; continue; }
+                boolean moved = false;
+                for (int k = 2; k < c.length; k++) {
+                    if (value(c[k]) != -1) {
+                        c[1] = c[k]; c[k] = falseLit;
+                        watches[c[1]].add(ci);
+                        moved = true;
+                        break;
+                    }
+                }
+                if (moved) continue;
+                ws.data[j++] = ci;
+                if (value(c[0]) == -1) {
+                    while (i < ws.size) ws.data[j++] = ws.data[i++];
+                    ws.size = j;
+                    qhead = trailSize;
+                    return ci;
+                }
+                propagations++;
+                enqueue(c[0], ci);
+            }
+            ws.size = j;
+        }
+        return -1;
+    }
+
+    /** Analisis 1UIP: deja en {@code out} la clausula aprendida (out[0] es el literal que se afirma). */
+    private int analyze(int confl, IntList out) {
+        out.clear();
+        out.add(-1);
+        int pathC = 0, p = -1, index = trailSize - 1;
+        do {
+            int[] c = clauses.get(confl);
+            for (int k = (p == -1 ? 0 : 1); k < c.length; k++) {
+                int q = c[k], v = q >> 1;
+                if (seen[v] || level[v] == 0) continue;
+                bump(v);
+                seen[v] = true;
+                if (level[v] >= decisionLevel()) pathC++;
+                else out.add(q);
+            }
+            while (!seen[trail[index--] >> 1]) { }
+            p = trail[index + 1];
+            confl = reason[p >> 1];
+            seen[p >> 1] = false;
+            pathC--;
+        } while (pathC > 0);
+        out.data[0] = p ^ 1;
+
+        int bt = 0, at = 1;
+        for (int k = 1; k < out.size; k++) {
+            int lv = level[out.data[k] >> 1];
+            if (lv > bt) { bt = lv; at = k; }
+        }
+        if (out.size > 1) { int t = out.data[1]; out.data[1] = out.data[at]; out.data[at] = t; }
+        for (int k = 1; k < out.size; k++) seen[out.data[k] >> 1] = false;
+        return bt;
+    }
+
+    private void bump(int v) {
+        if ((activity[v] += varInc) > 1e100) {
+            for (int i = 0; i < numVars; i++) activity[i] *= 1e-100;
+            varInc *= 1e-100;
+        }
+        order.increased(v);
+    }
+
+    private void cancelUntil(int lvl) {
+        if (decisionLevel() <= lvl) return;
+        int stop = trailLim.data[lvl];
+        for (int i = trailSize - 1; i >= stop; i--) {
+            int v = trail[i] >> 1;
+            phase[v] = assign[v] == 1;
+            assign[v] = 0;
+            reason[v] = -1;
+            if (!order.contains(v)) order.insert(v);
+        }
+        trailSize = qhead = stop;
+        trailLim.size = lvl;
+    }
+
+    /**
+     * Resuelve la formula. Devuelve true si es satisfacible (el modelo queda en value()).
+     * Si el hilo se interrumpe, lanza CancellationException en el siguiente bloque de conflictos.
+     */
+    boolean solve() {
+        if (unsat) return false;
+        if (propagate() >= 0) { unsat = true; return false; }
+        IntList learnt = new IntList();
+        int restart = 0;
+        long budget = RESTART_BASE * luby(restart);
+        long sinceRestart = 0;
+        while (true) {
+            int confl = propagate();
+            if (confl >= 0) {
+                conflicts++;
+                sinceRestart++;
+                if ((conflicts & 0xFF) == 0 && Thread.currentThread().isInterrupted())
+                    throw new CancellationException("Operacion cancelada");
+                if (decisionLevel() == 0) { unsat = true; return false; }
+                int bt = analyze(confl, learnt);
+                cancelUntil(bt);
+                if (learnt.size == 1) {
+                    enqueue(learnt.data[0], -1);
+                } else {
+                    int ci = attach(Arrays.copyOf(learnt.data, learnt.size));
+                    enqueue(learnt.data[0], ci);
+                }
+                learned++;
+                varInc /= VAR_DECAY;
+            } else {
+                if (sinceRestart >= budget) {
+                    cancelUntil(0);
+                    sinceRestart = 0;
+                    budget = RESTART_BASE * luby(++restart);
+                }
+                int next = -1;
+                while (!order.isEmpty()) {
+                    int v = order.removeMax();
+                    if (assign[v] == 0) { next = v; break; }
+                }
+                if (next < 0) return true;
+                decisions++;
+                trailLim.add(trailSize);
+                enqueue(lit(next, phase[next]), -1);
+            }
+        }
+    }
+
+    /** Valor de la variable en el modelo encontrado (las no asignadas valen falso). */
+    boolean modelValue(int var) { return assign[var] == 1; }
+
+    // Secuencia de Luby: 1 1 2 1 1 2 4 1 1 2 ...
+    private static long luby(int i) {
+        long size = 1; int seq = 0;
+        while (size < i + 1) { seq++; size = 2 * size + 1; }
+        long x = i;
+        while (size - 1 != x) { size = (size - 1) >> 1; seq--; x = x % size; }
+        return 1L << seq;
+    }
+
+    /* ---------------------------------------
+       Estructuras auxiliares
+       --------------------------------------- */
+    static final class IntList {
+        int[] data = new int[4];
+        int size;
+        void add(int x) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = x;
+        }
+        void clear() { size = 0; }
+    }
+
+    /** Monticulo binario de variables ordenado por actividad. */
+    private final class VarHeap {
+        int[] heap = new int[16];
+        int[] pos = new int[16];      // posicion + 1 en el monticulo, 0 si no esta
+        int size;
+
+        boolean isEmpty() { return size == 0; }
+        boolean contains(int v) { return v < pos.length && pos[v] != 0; }
+
+        void insert(int v) {
+            if (v >= pos.length) pos = Arrays.copyOf(pos, Math.max(v + 1, pos.length * 2));
+            if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+            heap[size] = v; pos[v] = size + 1; size++;
+            up(size - 1);
+        }
+
+        void increased(int v) { if (contains(v)) up(pos[v] - 1); }
+
+        int removeMax() {
+            int top = heap[0];
+            pos[top] = 0;
+            size--;
+            if (size > 0) { heap[0] = heap[size]; pos[heap[0]] = 1; down(0); }
+            return top;
+        }
+
+        private void up(int i) {
+            int v = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >> 1;
+                if (activity[heap[parent]] >= activity[v]) break;
+                heap[i] = heap[parent]; pos[heap[i]] = i + 1;
+                i = parent;
+            }
+            heap[i] = v; pos[v] = i + 1;
+        }
+
+        private void down(int i) {
+            int v = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && activity[heap[child + 1]] > activity[heap[child]]) child++;
+                if (activity[heap[child]] <= activity[v]) break;
+                heap[i] = heap[child]; pos[heap[i]] = i + 1;
+                i = child;
+            }
+            heap[i] = v; pos[v] = i + 1;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Columna de resultados de una tabla de verdad empaquetada en bits:
+ * la fila r (mascara de variables, la primera variable es el bit mas alto)
+ * ocupa el bit r % 64 de la palabra r / 64.
+ */
+final class TruthColumn {
+    /** Limite practico: 2^30 filas son 128 MB de columna. */
+    static final int MAX_VARS = 30;
+
+    final long[] words;
+    final long rows;
+
+    TruthColumn(long[] words, long rows) {
+        this.words = words;
+        this.rows = rows;
+    }
+
+    static long rowsFor(int numVars) {
+        if (numVars > MAX_VARS) throw new RuntimeException("Demasiadas variables para enumerar (" + numVars + " > " + MAX_VARS + ")");
+        return 1L << numVars;
+    }
+
+    static int wordsFor(long rows) {
+        return (int) ((rows + 63) >>> 6);
+    }
+
+    /** Mascara de filas validas de la palabra {@code w} (solo la ultima puede estar incompleta). */
+    static long validMask(long rows, int w) {
+        long remaining = rows - ((long) w << 6);
+        return remaining >= 64 ? -1L : (1L << remaining) - 1;
+    }
+
+    /** Calcula la columna completa evaluando 64 filas por operacion. */
+    static TruthColumn compute(BooleanExpression.Program program) {
+        long rows = rowsFor(program.numVars());
+        long[] words = new long[wordsFor(rows)];
+        long[] stack = program.newWordStack();
+        for (int w = 0; w < words.length; w++) {
+            words[w] = program.evaluateWord((long) w << 6, stack) & validMask(rows, w);
+        }
+        return new TruthColumn(words, rows);
+    }
+
+    boolean get(long row) {
+        return (words[(int) (row >>> 6)] & (1L << row)) != 0;
+    }
+
+    /** Primera fila {@code >= from} en 1, o -1 si no hay. */
+    long nextSetRow(long from) {
+        if (from < 0) from = 0;
+        if (from >= rows) return -1;
+        int w = (int) (from >>> 6);
+        long bits = words[w] & (-1L << from);
+        while (bits == 0) {
+            if (++w == words.length) return -1;
+            bits = words[w];
+        }
+        return ((long) w << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /** Ultima fila {@code <= from} en 1, o -1 si no hay. */
+    long previousSetRow(long from) {
+        if (from < 0) return -1;
+        if (from >= rows) from = rows - 1;
+        int w = (int) (from >>> 6);
+        long bits = words[w] & (-1L >>> (63 - (from & 63)));
+        while (bits == 0) {
+            if (--w < 0) return -1;
+            bits = words[w];
+        }
+        return ((long) w << 6) + 63 - Long.numberOfLeadingZeros(bits);
+    }
+
+    /** Filas en 1 antes de {@code row} (posicion de {@code row} entre ellas). */
+    long rank(long row) {
+        int w = (int) (row >>> 6);
+        long n = 0;
+        for (int i = 0; i < w; i++) n += Long.bitCount(words[i]);
+        if ((row & 63) != 0) n += Long.bitCount(words[w] & ((1L << row) - 1));
+        return n;
+    }
+
+    long cardinality() {
+        long n = 0;
+        for (long w : words) n += Long.bitCount(w);
+        return n;
+    }
+
+    /** Filas verdaderas en orden creciente (para minimizadores; requiere menos de 2^31 filas). */
+    int[] setRows() {
+        int[] out = new int[(int) cardinality()];
+        int n = 0;
+        for (int w = 0; w < words.length; w++) {
+            long bits = words[w];
+            while (bits != 0) {
+                out[n++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return out;
+    }
+
+    /** Filas donde esta columna y {@code other} difieren. */
+    TruthColumn xor(TruthColumn other) {
+        long[] out = new long[words.length];
+        for (int w = 0; w < out.length; w++) out[w] = words[w] ^ other.words[w];
+        return new TruthColumn(out, rows);
+    }
+}
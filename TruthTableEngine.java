@@ -0,0 +1,280 @@
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Barrido paralelo de tablas de verdad. El rango de palabras (64 filas cada una)
+ * se divide recursivamente en un ForkJoinPool; cada hoja usa su propia pila de
+ * evaluacion y devuelve sus conteos, que se suman al unir las tareas.
+ * Un {@link Monitor} opcional recibe las filas procesadas y permite cancelar.
+ */
+final class TruthTableEngine {
+    /** Palabras por hoja: 1024 palabras = 65536 filas. */
+    static final int LEAF_WORDS = 1024;
+
+    private TruthTableEngine() { }
+
+    /** Resultado del barrido: columnas y conteos ya reducidos. */
+    static final class Sweep {
+        final TruthColumn col1;
+        final TruthColumn col2;   // null si solo hay una expresion
+        final TruthColumn diff;   // filas donde col1 != col2 (null si solo hay una expresion)
+        final long trueCount;     // filas verdaderas de col1
+        final long eqRows;        // filas donde coinciden (== rows si solo hay una)
+
+        Sweep(TruthColumn col1, TruthColumn col2, TruthColumn diff, long trueCount, long eqRows) {
+            this.col1 = col1; this.col2 = col2; this.diff = diff;
+            this.trueCount = trueCount; this.eqRows = eqRows;
+        }
+        long rows() { return col1.rows; }
+    }
+
+    /**
+     * Progreso y cancelacion de un barrido. Las hojas suman sus filas al
+     * terminar y, si se pidio cancelar, lanzan CancellationException.
+     */
+    static final class Monitor {
+        private final AtomicLong done = new AtomicLong();
+        private volatile long total;
+        private volatile boolean cancelled;
+
+        void start(long rows) { done.set(0); total = rows; }
+        void cancel() { cancelled = true; }
+        boolean isCancelled() { return cancelled; }
+        long done() { return done.get(); }
+        long total() { return total; }
+
+        void check() {
+            if (cancelled) throw new CancellationException("Operacion cancelada");
+        }
+
+        void advance(long rows) {
+            done.addAndGet(rows);
+            check();
+        }
+    }
+
+    /** Columnas ya calculadas por clave de programa; el peso es el numero de palabras (64 MB en total). */
+    static final ResultCache<String, TruthColumn> COLUMNS =
+            new ResultCache<>("Columnas", 8L << 20, c -> c.words.length);
+
+    static ForkJoinPool pool() { return ForkJoinPool.commonPool(); }
+
+    /** Tabla de una expresion. */
+    static Sweep truthTable(BooleanExpression.Program p) {
+        return truthTable(p, null);
+    }
+
+    static Sweep truthTable(BooleanExpression.Program p, Monitor monitor) {
+        return run(p, null, monitor);
+    }
+
+    /** Tabla conjunta de dos expresiones ligadas al mismo orden de variables. */
+    static Sweep equivalence(BooleanExpression.Program p1, BooleanExpression.Program p2) {
+        return equivalence(p1, p2, null);
+    }
+
+    static Sweep equivalence(BooleanExpression.Program p1, BooleanExpression.Program p2, Monitor monitor) {
+        if (p1.numVars() != p2.numVars()) throw new IllegalArgumentException("Ordenes de variables distintos");
+        return run(p1, p2, monitor);
+    }
+
+    // Con las columnas en cache la tabla (y la diferencia) sale sin evaluar; si no, se barre y se guardan
+    private static Sweep run(BooleanExpression.Program p1, BooleanExpression.Program p2, Monitor monitor) {
+        TruthColumn k1 = cached(p1), k2 = p2 == null ? null : cached(p2);
+        if (k1 != null && (p2 == null || k2 != null)) {
+            if (monitor != null) { monitor.start(k1.rows); monitor.advance(k1.rows); }
+            if (p2 == null) return new Sweep(k1, null, null, k1.cardinality(), k1.rows);
+            TruthColumn diff = k1.xor(k2);
+            return new Sweep(k1, k2, diff, k1.cardinality(), k1.rows - diff.cardinality());
+        }
+        Sweep s = sweep(p1, p2, monitor);
+        if (p1.key() != null) COLUMNS.put(p1.key(), s.col1);
+        if (p2 != null && p2.key() != null) COLUMNS.put(p2.key(), s.col2);
+        return s;
+    }
+
+    private static TruthColumn cached(BooleanExpression.Program p) {
+        return p.key() == null ? null : COLUMNS.get(p.key());
+    }
+
+    private static Sweep sweep(BooleanExpression.Program p1, BooleanExpression.Program p2, Monitor monitor) {
+        long t0 = CalculatorMetrics.start();
+        long rows = TruthColumn.rowsFor(p1.numVars());
+        int n = TruthColumn.wordsFor(rows);
+        long[] w1 = new long[n];
+        long[] w2 = p2 == null ? null : new long[n];
+        long[] wd = p2 == null ? null : new long[n];
+        if (monitor != null) monitor.start(rows);
+        Chunk root = new Chunk(p1, p2, GrayEvaluator.of(p1), p2 == null ? null : GrayEvaluator.of(p2),
+                               w1, w2, wd, rows, monitor, 0, n);
+        long[] counts = n <= LEAF_WORDS ? root.compute() : pool().invoke(root);
+        CalculatorMetrics.rows(rows, t0);
+        TruthColumn c1 = new TruthColumn(w1, rows);
+        if (p2 == null) return new Sweep(c1, null, null, counts[0], rows);
+        return new Sweep(c1, new TruthColumn(w2, rows), new TruthColumn(wd, rows), counts[0], rows - counts[1]);
+    }
+
+    /* ---------------------------------------
+       Verificacion con salida temprana: no se guarda
+       ninguna columna y se para en el primer testigo.
+       --------------------------------------- */
+
+    /** Primera fila (orden de tabla) donde p1 y p2 difieren, o -1 si son equivalentes. */
+    static long firstDifference(BooleanExpression.Program p1, BooleanExpression.Program p2) {
+        return firstDifference(p1, p2, null);
+    }
+
+    static long firstDifference(BooleanExpression.Program p1, BooleanExpression.Program p2, Monitor monitor) {
+        if (p1.numVars() != p2.numVars()) throw new IllegalArgumentException("Ordenes de variables distintos");
+        return search(p1, p2, true, monitor);
+    }
+
+    /** Primera fila donde p vale {@code value}, o -1 si no hay ninguna. */
+    static long firstRow(BooleanExpression.Program p, boolean value) {
+        return firstRow(p, value, null);
+    }
+
+    static long firstRow(BooleanExpression.Program p, boolean value, Monitor monitor) {
+        return search(p, null, value, monitor);
+    }
+
+    private static long search(BooleanExpression.Program p1, BooleanExpression.Program p2, boolean value, Monitor monitor) {
+        long t0 = CalculatorMetrics.start();
+        long rows = TruthColumn.rowsFor(p1.numVars());
+        int n = TruthColumn.wordsFor(rows);
+        AtomicLong found = new AtomicLong(Long.MAX_VALUE);
+        if (monitor != null) monitor.start(rows);
+        Search root = new Search(p1, p2, value, rows, found, monitor, 0, n);
+        if (n <= LEAF_WORDS) root.compute(); else pool().invoke(root);
+        long row = found.get();
+        CalculatorMetrics.time("busqueda", t0);
+        return row == Long.MAX_VALUE ? -1 : row;
+    }
+
+    /**
+     * Busca en las palabras [lo, hi). Los tramos que empiezan despues del mejor
+     * testigo ya encontrado se descartan, asi el resultado es siempre la menor fila.
+     */
+    @SuppressWarnings("serial")   // tarea de ForkJoin, nunca se serializa
+    private static final class Search extends RecursiveAction {
+        final BooleanExpression.Program p1, p2;
+        final boolean value;
+        final long rows;
+        final AtomicLong found;
+        final Monitor monitor;
+        final int lo, hi;
+
+        Search(BooleanExpression.Program p1, BooleanExpression.Program p2, boolean value,
+               long rows, AtomicLong found, Monitor monitor, int lo, int hi) {
+            this.p1 = p1; this.p2 = p2; this.value = value;
+            this.rows = rows; this.found = found; this.monitor = monitor; this.lo = lo; this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (((long) lo << 6) >= found.get()) return;
+            if (hi - lo > LEAF_WORDS) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new Search(p1, p2, value, rows, found, monitor, lo, mid),
+                          new Search(p1, p2, value, rows, found, monitor, mid, hi));
+                return;
+            }
+            if (monitor != null) monitor.check();
+            long[] s1 = p1.newWordStack();
+            long[] s2 = p2 == null ? null : p2.newWordStack();
+            for (int w = lo; w < hi; w++) {
+                long base = (long) w << 6;
+                if (base >= found.get()) return;
+                long a = p1.evaluateWord(base, s1);
+                long hit = p2 != null ? a ^ p2.evaluateWord(base, s2) : (value ? a : ~a);
+                hit &= TruthColumn.validMask(rows, w);
+                if (hit != 0) {
+                    long row = base + Long.numberOfTrailingZeros(hit);
+                    found.accumulateAndGet(row, Math::min);
+                    return;
+                }
+            }
+            if (monitor != null) monitor.advance(Math.min(rows, (long) hi << 6) - ((long) lo << 6));
+        }
+    }
+
+    /**
+     * Tarea sobre las palabras [lo, hi). Devuelve {verdaderos de p1, filas distintas}.
+     * Si algun programa tiene evaluador Gray, [lo, hi) son pasos Gray y cada paso
+     * escribe la palabra gray(g); como gray es biyectiva, la columna queda completa.
+     */
+    @SuppressWarnings("serial")   // tarea de ForkJoin, nunca se serializa
+    private static final class Chunk extends RecursiveTask<long[]> {
+        final BooleanExpression.Program p1, p2;
+        final GrayEvaluator g1, g2;
+        final long[] w1, w2, wd;
+        final long rows;
+        final Monitor monitor;
+        final int lo, hi;
+
+        Chunk(BooleanExpression.Program p1, BooleanExpression.Program p2, GrayEvaluator g1, GrayEvaluator g2,
+              long[] w1, long[] w2, long[] wd, long rows, Monitor monitor, int lo, int hi) {
+            this.p1 = p1; this.p2 = p2; this.g1 = g1; this.g2 = g2; this.w1 = w1; this.w2 = w2; this.wd = wd;
+            this.rows = rows; this.monitor = monitor; this.lo = lo; this.hi = hi;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (hi - lo > LEAF_WORDS) {
+                int mid = (lo + hi) >>> 1;
+                Chunk left  = new Chunk(p1, p2, g1, g2, w1, w2, wd, rows, monitor, lo, mid);
+                Chunk right = new Chunk(p1, p2, g1, g2, w1, w2, wd, rows, monitor, mid, hi);
+                left.fork();
+                long[] r = right.compute();
+                long[] l = left.join();
+                return new long[]{ l[0] + r[0], l[1] + r[1] };
+            }
+            if (monitor != null) monitor.check();
+            if (g1 != null || g2 != null) return computeGray();
+            long trues = 0, diffs = 0;
+            long[] s1 = p1.newWordStack();
+            long[] s2 = p2 == null ? null : p2.newWordStack();
+            for (int w = lo; w < hi; w++) {
+                long valid = TruthColumn.validMask(rows, w);
+                long a = p1.evaluateWord((long) w << 6, s1) & valid;
+                w1[w] = a;
+                trues += Long.bitCount(a);
+                if (p2 != null) {
+                    long b = p2.evaluateWord((long) w << 6, s2) & valid;
+                    w2[w] = b;
+                    wd[w] = a ^ b;
+                    diffs += Long.bitCount(a ^ b);
+                }
+            }
+            if (monitor != null) monitor.advance(Math.min(rows, (long) hi << 6) - ((long) lo << 6));
+            return new long[]{ trues, diffs };
+        }
+
+        // Con Gray hay al menos dos palabras completas, asi que no hace falta validMask
+        private long[] computeGray() {
+            long trues = 0, diffs = 0;
+            GrayEvaluator.Cursor c1 = g1 == null ? null : g1.cursor();
+            GrayEvaluator.Cursor c2 = g2 == null ? null : g2.cursor();
+            long[] s1 = c1 == null ? p1.newWordStack() : null;
+            long[] s2 = p2 == null || c2 != null ? null : p2.newWordStack();
+            for (int g = lo; g < hi; g++) {
+                int w = (int) GrayEvaluator.gray(g);
+                long base = (long) w << 6;
+                long a = c1 == null ? p1.evaluateWord(base, s1) : g == lo ? c1.seek(base) : c1.step(g);
+                w1[w] = a;
+                trues += Long.bitCount(a);
+                if (p2 != null) {
+                    long b = c2 == null ? p2.evaluateWord(base, s2) : g == lo ? c2.seek(base) : c2.step(g);
+                    w2[w] = b;
+                    wd[w] = a ^ b;
+                    diffs += Long.bitCount(a ^ b);
+                }
+            }
+            if (monitor != null) monitor.advance(((long) hi - lo) << 6);
+            return new long[]{ trues, diffs };
+        }
+    }
+}
@@ -0,0 +1,214 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Exportacion de tablas de verdad directamente desde el evaluador, sin armar
+ * la tabla en memoria: se evaluan bloques de 64 filas y se escriben a un
+ * FileChannel con un buffer reutilizable, asi el heap no depende del tamano.
+ *
+ * Formato binario (little-endian):
+ *   int  MAGIC ("BTT1")   int version   int numVars   long rows
+ *   int  bytes + UTF-8 de los nombres de variables (separados por coma;
+ *        en la version 1, un caracter por variable y sin separador)
+ *   int  bytes + UTF-8 de la expresion
+ *   relleno hasta multiplo de 8
+ *   long[ceil(rows/64)] columna de resultados (fila r = bit r%64 de la palabra r/64)
+ */
+final class TruthTableExporter {
+    static final int MAGIC = 0x31545442;          // "BTT1" leido en little-endian
+    static final int VERSION = 2;
+    /** Tamano del buffer de escritura. */
+    static final int BUFFER_SIZE = 1 << 16;
+    /** Palabras evaluadas entre avisos al monitor. */
+    private static final int PROGRESS_WORDS = 1024;
+
+    private TruthTableExporter() { }
+
+    /* ---------------------------------------
+       CSV
+       --------------------------------------- */
+
+    /**
+     * Escribe la tabla como CSV (V/F, cabecera con las variables y la expresion).
+     * Cada fila tiene ancho fijo y difiere de la anterior en los bits que cambian
+     * al sumar uno, asi que solo se reescriben esos caracteres. Devuelve las filas.
+     */
+    static long writeCsv(BooleanExpression.Program program, List<String> vars, String header,
+                         Path file, TruthTableEngine.Monitor monitor) throws IOException {
+        int n = vars.size();
+        long rows = TruthColumn.rowsFor(n);
+        if (monitor != null) monitor.start(rows);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                               StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            StringBuilder head = new StringBuilder();
+            for (String v : vars) head.append(v).append(',');
+            head.append(csvQuote(header)).append('\n');
+            put(ch, buf, head.toString().getBytes(StandardCharsets.UTF_8));
+
+            // "F,F,...,F,?\n": la variable j esta en la posicion 2j, el resultado en 2n
+            byte[] line = new byte[2 * n + 2];
+            for (int j = 0; j < n; j++) { line[2 * j] = 'F'; line[2 * j + 1] = ','; }
+            line[2 * n + 1] = '\n';
+
+            long[] stack = program.newWordStack();
+            int words = TruthColumn.wordsFor(rows);
+            for (int w = 0; w < words; w++) {
+                long base = (long) w << 6;
+                long bits = program.evaluateWord(base, stack);
+                int count = (int) Math.min(64, rows - base);
+                for (int i = 0; i < count; i++) {
+                    long row = base + i;
+                    if (row > 0) {
+                        // fila anterior + 1: los unos finales pasan a F y el siguiente bit a V
+                        long changed = row ^ (row - 1);
+                        for (int bit = 0; changed != 0 && bit < n; bit++, changed >>>= 1) {
+                            line[2 * (n - 1 - bit)] = (byte) (((row >>> bit) & 1) != 0 ? 'V' : 'F');
+                        }
+                    }
+                    line[2 * n] = (byte) (((bits >>> i) & 1) != 0 ? 'V' : 'F');
+                    put(ch, buf, line);
+                }
+                if (monitor != null && (w + 1) % PROGRESS_WORDS == 0) monitor.advance(64L * PROGRESS_WORDS);
+            }
+            flush(ch, buf);
+        }
+        return rows;
+    }
+
+    private static void put(FileChannel ch, ByteBuffer buf, byte[] bytes) throws IOException {
+        if (buf.remaining() < bytes.length) flush(ch, buf);
+        if (bytes.length > buf.capacity()) { ch.write(ByteBuffer.wrap(bytes)); return; }
+        buf.put(bytes);
+    }
+
+    private static void flush(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+
+    private static String csvQuote(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    /* ---------------------------------------
+       Binario
+       --------------------------------------- */
+
+    /**
+     * Escribe el formato binario. Con {@code mapped} la columna se escribe en un
+     * MappedByteBuffer del archivo; si no, por bloques con el buffer reutilizable.
+     */
+    static long writeBinary(BooleanExpression.Program program, List<String> vars, String header,
+                            Path file, boolean mapped, TruthTableEngine.Monitor monitor) throws IOException {
+        int n = vars.size();
+        long rows = TruthColumn.rowsFor(n);
+        int words = TruthColumn.wordsFor(rows);
+        if (monitor != null) monitor.start(rows);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer head = header(vars, header, rows);
+            long dataOffset = head.remaining();
+            while (head.hasRemaining()) ch.write(head);
+
+            long[] stack = program.newWordStack();
+            ByteBuffer out = mapped
+                    ? ch.map(FileChannel.MapMode.READ_WRITE, dataOffset, (long) words * 8)
+                    : ByteBuffer.allocateDirect(BUFFER_SIZE);
+            out.order(ByteOrder.LITTLE_ENDIAN);
+            for (int w = 0; w < words; w++) {
+                if (!mapped && out.remaining() < 8) flush(ch, out);
+                out.putLong(program.evaluateWord((long) w << 6, stack) & TruthColumn.validMask(rows, w));
+                if (monitor != null && (w + 1) % PROGRESS_WORDS == 0) monitor.advance(64L * PROGRESS_WORDS);
+            }
+            if (mapped) ((MappedByteBuffer) out).force();
+            else flush(ch, out);
+        }
+        return rows;
+    }
+
+    private static ByteBuffer header(List<String> vars, String expression, long rows) {
+        byte[] nb = String.join(",", vars).getBytes(StandardCharsets.UTF_8);
+        byte[] eb = expression.getBytes(StandardCharsets.UTF_8);
+        int size = 4 + 4 + 4 + 8 + 4 + nb.length + 4 + eb.length;
+        size = (size + 7) & ~7;
+        ByteBuffer b = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(MAGIC).putInt(VERSION).putInt(vars.size()).putLong(rows);
+        b.putInt(nb.length).put(nb);
+        b.putInt(eb.length).put(eb);
+        b.position(size);
+        b.flip();
+        return b;
+    }
+
+    /** Vista de solo lectura de un archivo binario, con la columna mapeada en memoria. */
+    static final class BinaryTable implements AutoCloseable {
+        final List<String> variables;
+        final String expression;
+        final int numVars;
+        final long rows;
+        private final FileChannel ch;
+        private final ByteBuffer column;
+
+        BinaryTable(Path file) throws IOException {
+            ch = FileChannel.open(file, StandardOpenOption.READ);
+            ByteBuffer fixed = ByteBuffer.allocate(20).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(ch, fixed, 0);
+            if (fixed.getInt() != MAGIC) throw new IOException("No es una tabla binaria BTT1");
+            int version = fixed.getInt();
+            if (version < 1 || version > VERSION) throw new IOException("Version de tabla no soportada");
+            numVars = fixed.getInt();
+            rows = fixed.getLong();
+            long pos = 20;
+            String names = readString(ch, pos);
+            pos += 4 + names.getBytes(StandardCharsets.UTF_8).length;
+            variables = version == 1 ? Arrays.asList(names.split("(?!^)"))
+                      : names.isEmpty() ? Collections.emptyList() : Arrays.asList(names.split(","));
+            expression = readString(ch, pos);
+            pos += 4 + expression.getBytes(StandardCharsets.UTF_8).length;
+            pos = (pos + 7) & ~7L;
+            column = ch.map(FileChannel.MapMode.READ_ONLY, pos, (long) TruthColumn.wordsFor(rows) * 8)
+                       .order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        boolean get(long row) {
+            return (column.getLong((int) (row >>> 6) * 8) & (1L << row)) != 0;
+        }
+
+        long word(int w) { return column.getLong(w * 8); }
+
+        long cardinality() {
+            long c = 0;
+            for (int w = 0, n = TruthColumn.wordsFor(rows); w < n; w++) c += Long.bitCount(word(w));
+            return c;
+        }
+
+        @Override public void close() throws IOException { ch.close(); }
+
+        private static String readString(FileChannel ch, long pos) throws IOException {
+            ByteBuffer len = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(ch, len, pos);
+            ByteBuffer s = ByteBuffer.allocate(len.getInt());
+            readFully(ch, s, pos + 4);
+            return new String(s.array(), StandardCharsets.UTF_8);
+        }
+
+        private static void readFully(FileChannel ch, ByteBuffer b, long pos) throws IOException {
+            while (b.hasRemaining()) {
+                if (ch.read(b, pos + b.position()) < 0) throw new IOException("Archivo truncado");
+            }
+            b.flip();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Modelo virtual de la tabla de verdad. Las celdas de variables se calculan a
+ * partir del indice de fila y las de resultado se leen de las columnas de bits
+ * del evaluador, asi que la memoria es la de las columnas (2^n bits cada una) y
+ * no hay un Object[] por fila.
+ */
+final class TruthTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final String V = "V", F = "F", SI = "SI", NO = "NO";
+
+    private String[] names = new String[0];
+    private int numVars;
+    private int rowCount;
+    private TruthColumn col1, col2, diff;
+
+    /**
+     * Muestra una tabla. {@code headers} son los nombres de las columnas de
+     * resultado (una o dos expresiones); con dos se agrega la columna Equivalente.
+     */
+    void show(List<String> vars, String[] headers, TruthColumn col1, TruthColumn col2, TruthColumn diff, int rowCount) {
+        this.numVars = vars.size();
+        this.col1 = col1;
+        this.col2 = col2;
+        this.diff = diff;
+        this.rowCount = rowCount;
+        names = new String[numVars + headers.length + (col2 != null ? 1 : 0)];
+        for (int i = 0; i < numVars; i++) names[i] = vars.get(i);
+        System.arraycopy(headers, 0, names, numVars, headers.length);
+        if (col2 != null) names[names.length - 1] = "Equivalente";
+        fireTableStructureChanged();
+    }
+
+    void clear() {
+        names = new String[0];
+        numVars = rowCount = 0;
+        col1 = col2 = diff = null;
+        fireTableStructureChanged();
+    }
+
+    /* ---------------------------------------
+       Filas que difieren (modo equivalencia): se leen de
+       la columna de diferencias, un bit por fila.
+       --------------------------------------- */
+
+    boolean isDifferent(int row) {
+        return diff != null && diff.get(row);
+    }
+
+    /** Primera fila mostrada {@code >= from} que difiere, o -1. */
+    int nextDifference(int from) {
+        long r = diff == null ? -1 : diff.nextSetRow(from);
+        return r < rowCount ? (int) r : -1;
+    }
+
+    /** Ultima fila mostrada {@code <= from} que difiere, o -1. */
+    int previousDifference(int from) {
+        return diff == null ? -1 : (int) diff.previousSetRow(Math.min(from, rowCount - 1));
+    }
+
+    /** Cantidad de filas mostradas que difieren. */
+    long differenceCount() {
+        return diff == null || rowCount == 0 ? 0 : diff.rank(rowCount - 1) + (diff.get(rowCount - 1) ? 1 : 0);
+    }
+
+    /** Posicion (desde 0) de {@code row} entre las filas que difieren. */
+    long differenceIndex(int row) {
+        return diff.rank(row);
+    }
+
+    @Override public int getRowCount() { return rowCount; }
+    @Override public int getColumnCount() { return names.length; }
+    @Override public String getColumnName(int column) { return names[column]; }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        if (column < numVars) return ((row >> (numVars - 1 - column)) & 1) == 1 ? V : F;
+        if (column == numVars) return col1.get(row) ? V : F;
+        if (column == numVars + 1) return col2.get(row) ? V : F;
+        return diff.get(row) ? NO : SI;
+    }
+}
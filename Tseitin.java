@@ -0,0 +1,185 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Codificacion de Tseitin del AST de AlgebraicSimplifier a CNF sobre un SatSolver.
+ * Cada compuerta And/Or recibe una variable auxiliar y tres clausulas; las negaciones
+ * solo invierten el literal. Los subterminos compartidos (la fabrica de nodos
+ * hace que los operandos de = y ^ sean un mismo nodo) se codifican una sola vez,
+ * asi que el tamano de la CNF es lineal en el de la expresion.
+ */
+final class Tseitin {
+    enum Kind { TAUTOLOGIA, CONTRADICCION, CONTINGENCIA }
+
+    private final SatSolver solver;
+    private final List<int[]> clauses;          // sin resolutor: las clausulas se guardan
+    private final Map<String, Integer> vars = new TreeMap<>();
+    private final Map<AlgebraicSimplifier.Node, Integer> memo = new IdentityHashMap<>();
+    private int trueLit = -1, numVars;
+
+    Tseitin(SatSolver solver) { this.solver = solver; this.clauses = null; }
+
+    // Solo registra las clausulas (para mostrar la CNF)
+    private Tseitin() { this.solver = null; this.clauses = new ArrayList<>(); }
+
+    private int newVar() { return solver != null ? solver.newVar() : numVars++; }
+
+    private void addClause(int... lits) {
+        if (solver != null) solver.addClause(lits);
+        else clauses.add(lits);
+    }
+
+    /** Variables de la formula (nombre -> variable del resolutor), en orden alfabetico. */
+    Map<String, Integer> variables() { return vars; }
+
+    /**
+     * Devuelve un literal equivalente al nodo, agregando las clausulas de definicion.
+     * Recorre el DAG en postorden con pila propia, asi que la profundidad no importa.
+     */
+    int encode(AlgebraicSimplifier.Node root) {
+        Integer cached = memo.get(root);
+        if (cached != null) return cached;
+        for (AlgebraicSimplifier.Node n : AlgebraicSimplifier.postOrder(root)) {
+            if (memo.containsKey(n)) continue;
+            int lit;
+            if (n instanceof AlgebraicSimplifier.Const) {
+                lit = ((AlgebraicSimplifier.Const) n).v ? constTrue() : constTrue() ^ 1;
+            } else if (n instanceof AlgebraicSimplifier.Var) {
+                String name = ((AlgebraicSimplifier.Var) n).name;
+                Integer v = vars.get(name);
+                if (v == null) { v = newVar(); vars.put(name, v); }
+                lit = SatSolver.lit(v, true);
+            } else if (n instanceof AlgebraicSimplifier.Not) {
+                lit = memo.get(((AlgebraicSimplifier.Not) n).x) ^ 1;
+            } else if (n instanceof AlgebraicSimplifier.And) {
+                int a = memo.get(((AlgebraicSimplifier.And) n).l);
+                int b = memo.get(((AlgebraicSimplifier.And) n).r);
+                lit = SatSolver.lit(newVar(), true);
+                // g <-> a & b
+                addClause(lit ^ 1, a);
+                addClause(lit ^ 1, b);
+                addClause(lit, a ^ 1, b ^ 1);
+            } else if (n instanceof AlgebraicSimplifier.Or) {
+                int a = memo.get(((AlgebraicSimplifier.Or) n).l);
+                int b = memo.get(((AlgebraicSimplifier.Or) n).r);
+                lit = SatSolver.lit(newVar(), true);
+                // g <-> a | b
+                addClause(lit, a ^ 1);
+                addClause(lit, b ^ 1);
+                addClause(lit ^ 1, a, b);
+            } else {
+                throw new RuntimeException("Nodo no soportado en CNF");
+            }
+            memo.put(n, lit);
+        }
+        return memo.get(root);
+    }
+
+    private int constTrue() {
+        if (trueLit < 0) {
+            trueLit = SatSolver.lit(newVar(), true);
+            addClause(trueLit);
+        }
+        return trueLit;
+    }
+
+    /** Modelo de las variables originales (tras un solve() satisfacible). */
+    Map<String, Boolean> model() {
+        Map<String, Boolean> m = new TreeMap<>();
+        for (Map.Entry<String, Integer> e : vars.entrySet()) m.put(e.getKey(), solver.modelValue(e.getValue()));
+        return m;
+    }
+
+    /**
+     * CNF de Tseitin de la formula como texto: las variables originales
+     * conservan su nombre y cada compuerta agrega una auxiliar (t1, t2...,
+     * con un prefijo que no choque con las variables). Es equisatisfacible con
+     * la formula y, fijadas las originales, las auxiliares quedan determinadas.
+     */
+    static Cnf cnf(AlgebraicSimplifier.Node root) {
+        Tseitin t = new Tseitin();
+        t.addClause(t.encode(root));
+        String[] names = new String[t.numVars];
+        for (Map.Entry<String, Integer> e : t.vars.entrySet()) names[e.getValue()] = e.getKey();
+        String prefix = "t";
+        while (clashes(prefix, t.vars.keySet())) prefix += "t";
+        int aux = 0;
+        for (int v = 0; v < names.length; v++) if (names[v] == null) names[v] = prefix + (++aux);
+        return new Cnf(names, t.vars.size(), t.clauses);
+    }
+
+    private static boolean clashes(String prefix, Iterable<String> names) {
+        for (String n : names) if (n.matches(prefix + "\\d+")) return true;
+        return false;
+    }
+
+    /** Clausulas de {@link #cnf}; el literal 2v / 2v+1 es la variable v afirmada / negada. */
+    static final class Cnf {
+        final String[] names;
+        final int originalVars;
+        final List<int[]> clauses;
+
+        Cnf(String[] names, int originalVars, List<int[]> clauses) {
+            this.names = names;
+            this.originalVars = originalVars;
+            this.clauses = clauses;
+        }
+
+        int auxiliaryVars() { return names.length - originalVars; }
+
+        /** Las primeras {@code max} clausulas como conjuncion de disyunciones. */
+        String text(int max) {
+            StringBuilder sb = new StringBuilder();
+            int shown = Math.min(max, clauses.size());
+            for (int i = 0; i < shown; i++) {
+                if (i > 0) sb.append(" & ");
+                int[] c = clauses.get(i);
+                sb.append('(');
+                for (int j = 0; j < c.length; j++) {
+                    if (j > 0) sb.append(" | ");
+                    if ((c[j] & 1) != 0) sb.append('~');
+                    sb.append(names[c[j] >> 1]);
+                }
+                sb.append(')');
+            }
+            if (shown < clauses.size()) sb.append(" & ... (").append(clauses.size() - shown).append(" clausulas mas)");
+            return sb.toString();
+        }
+
+        @Override public String toString() { return text(Integer.MAX_VALUE); }
+    }
+
+    /* ---------------------------------------
+       Consultas de alto nivel
+       --------------------------------------- */
+
+    /** Una asignacion que hace verdadera la formula, o null si es insatisfacible. */
+    static Map<String, Boolean> satisfy(AlgebraicSimplifier.Node root) {
+        SatSolver s = new SatSolver();
+        Tseitin t = new Tseitin(s);
+        s.addClause(t.encode(root));
+        return s.solve() ? t.model() : null;
+    }
+
+    /** Asignacion donde a y b difieren (se resuelve a XOR b), o null si son equivalentes. */
+    static Map<String, Boolean> counterexample(AlgebraicSimplifier.Node a, AlgebraicSimplifier.Node b) {
+        SatSolver s = new SatSolver();
+        Tseitin t = new Tseitin(s);
+        int la = t.encode(a), lb = t.encode(b);
+        int x = SatSolver.lit(s.newVar(), true);
+        // x <-> la ^ lb, y se exige x
+        s.addClause(x ^ 1, la, lb);
+        s.addClause(x ^ 1, la ^ 1, lb ^ 1);
+        s.addClause(x);
+        return s.solve() ? t.model() : null;
+    }
+
+    static Kind classify(AlgebraicSimplifier.Node root) {
+        if (satisfy(root) == null) return Kind.CONTRADICCION;
+        if (satisfy(AlgebraicSimplifier.negate(root)) == null) return Kind.TAUTOLOGIA;
+        return Kind.CONTINGENCIA;
+    }
+}
@@ -0,0 +1,135 @@
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Verificacion rapida sin tabla, compartida por la interfaz y el modo por lotes.
+ * Hasta SAT_MIN_VARS variables se enumera con salida temprana; por encima se
+ * intenta un BDD (que ademas cuenta los verdaderos) y, si crece demasiado, SAT.
+ */
+final class Verifier {
+    /** Hasta este numero de variables se enumera; por encima se usa BDD / SAT. */
+    static final int SAT_MIN_VARS = 20;
+    /** Tope de nodos del BDD antes de recurrir al resolutor SAT. */
+    static final int BDD_NODE_LIMIT = 1_000_000;
+
+    private Verifier() { }
+
+    static final class Classification {
+        final List<String> vars;
+        final Tseitin.Kind kind;
+        final boolean[] trueAsg, falseAsg;                 // testigos indexados como vars (null si no existen)
+        final BigInteger trueCount;                        // null si el motor no cuenta
+        final String engine, bddStats;
+        final long micros;
+
+        Classification(List<String> vars, boolean[] trueAsg, boolean[] falseAsg,
+                       BigInteger trueCount, String engine, String bddStats, long micros) {
+            this.vars = vars; this.trueAsg = trueAsg; this.falseAsg = falseAsg;
+            this.trueCount = trueCount; this.engine = engine; this.bddStats = bddStats; this.micros = micros;
+            this.kind = trueAsg == null ? Tseitin.Kind.CONTRADICCION
+                      : falseAsg == null ? Tseitin.Kind.TAUTOLOGIA : Tseitin.Kind.CONTINGENCIA;
+        }
+    }
+
+    static final class Equivalence {
+        final List<String> vars;
+        final boolean[] counterexample;                    // indexado como vars; null si son equivalentes
+        final String engine, bddStats;
+        final long micros;
+
+        Equivalence(List<String> vars, boolean[] counterexample, String engine, String bddStats, long micros) {
+            this.vars = vars; this.counterexample = counterexample;
+            this.engine = engine; this.bddStats = bddStats; this.micros = micros;
+        }
+        boolean equivalent() { return counterexample == null; }
+    }
+
+    /** Clasifica {@code expression}; {@code program} debe estar ligado a {@code varList}. */
+    static Classification classify(String expression, BooleanExpression.Program program, List<String> varList,
+                                   TruthTableEngine.Monitor monitor) {
+        long t0 = System.nanoTime();
+        boolean[] trueAsg, falseAsg;
+        String engine, bddStats = null;
+        BigInteger trueCount = null;
+        if (varList.size() > SAT_MIN_VARS) {
+            AlgebraicSimplifier.Node ast = AlgebraicSimplifier.parse(expression);
+            try {
+                Bdd bdd = new Bdd(Bdd.order(Bdd.Ordering.APARICION, ast), BDD_NODE_LIMIT);
+                int root = bdd.build(ast);
+                trueAsg  = fromModel(varList, bdd.anySat(root));
+                falseAsg = fromModel(varList, bdd.anySat(bdd.not(root)));
+                trueCount = bdd.satCount(root);
+                engine = "BDD (" + bdd.nodeCount(root) + " nodos)";
+                bddStats = bdd.stats();
+            } catch (Bdd.LimitExceeded ex) {
+                trueAsg  = fromModel(varList, Tseitin.satisfy(ast));
+                falseAsg = trueAsg == null ? null : fromModel(varList, Tseitin.satisfy(AlgebraicSimplifier.negate(ast)));
+                engine = "SAT (CDCL + Tseitin)";
+            }
+        } else {
+            long trueRow  = TruthTableEngine.firstRow(program, true, monitor);
+            long falseRow = trueRow < 0 ? -1 : TruthTableEngine.firstRow(program, false, monitor);
+            trueAsg  = rowAssignment(varList.size(), trueRow);
+            falseAsg = rowAssignment(varList.size(), falseRow);
+            engine = "enumeracion bit-paralela";
+        }
+        CalculatorMetrics.time("clasificacion", t0);
+        return new Classification(varList, trueAsg, falseAsg, trueCount, engine, bddStats, (System.nanoTime() - t0) / 1000);
+    }
+
+    /** Busca un contraejemplo a la equivalencia de dos expresiones sobre {@code varList}. */
+    static Equivalence equivalence(String expr1, String expr2, BooleanExpression e1, BooleanExpression e2,
+                                   List<String> varList, TruthTableEngine.Monitor monitor) {
+        long t0 = System.nanoTime();
+        boolean[] counter;
+        String engine, bddStats = null;
+        if (varList.size() > SAT_MIN_VARS) {
+            // una sola fabrica: los subterminos comunes a ambas expresiones son el mismo nodo
+            AlgebraicSimplifier.NodeFactory nodes = new AlgebraicSimplifier.NodeFactory();
+            AlgebraicSimplifier.Node a1 = AlgebraicSimplifier.parse(expr1, nodes);
+            AlgebraicSimplifier.Node a2 = AlgebraicSimplifier.parse(expr2, nodes);
+            try {
+                // Con la tabla unica compartida, equivalencia = misma raiz
+                Bdd bdd = new Bdd(Bdd.order(Bdd.Ordering.APARICION, a1, a2), BDD_NODE_LIMIT);
+                int r1 = bdd.build(a1), r2 = bdd.build(a2);
+                counter = r1 == r2 ? null : fromModel(varList, bdd.anySat(bdd.xor(r1, r2)));
+                engine = "BDD";
+                bddStats = bdd.stats();
+            } catch (Bdd.LimitExceeded ex) {
+                counter = fromModel(varList, Tseitin.counterexample(a1, a2));
+                engine = "SAT (CDCL + Tseitin)";
+            }
+        } else {
+            counter = rowAssignment(varList.size(), TruthTableEngine.firstDifference(e1.bind(varList), e2.bind(varList), monitor));
+            engine = "enumeracion bit-paralela";
+        }
+        CalculatorMetrics.time("equivalencia", t0);
+        return new Equivalence(varList, counter, engine, bddStats, (System.nanoTime() - t0) / 1000);
+    }
+
+    // Asignacion de una fila (la primera variable es el bit mas significativo); null si row < 0
+    static boolean[] rowAssignment(int numVars, long row) {
+        if (row < 0) return null;
+        boolean[] asg = new boolean[numVars];
+        for (int j = 0; j < numVars; j++) asg[j] = ((row >> (numVars - 1 - j)) & 1) == 1;
+        return asg;
+    }
+
+    // Modelo de BDD/SAT (por nombre) a arreglo indexado como varList; las ausentes quedan en F
+    static boolean[] fromModel(List<String> varList, Map<String, Boolean> model) {
+        if (model == null) return null;
+        boolean[] asg = new boolean[varList.size()];
+        for (int j = 0; j < asg.length; j++) asg[j] = model.getOrDefault(varList.get(j), false);
+        return asg;
+    }
+
+    static String describeAssignment(List<String> varList, boolean[] asg) {
+        StringBuilder sb = new StringBuilder();
+        for (int j = 0; j < varList.size(); j++) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(varList.get(j)).append('=').append(asg[j] ? "V" : "F");
+        }
+        return sb.toString();
+    }
+}